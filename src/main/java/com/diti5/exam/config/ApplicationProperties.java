@@ -1,5 +1,7 @@
 package com.diti5.exam.config;
 
+import java.time.Duration;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,7 +12,475 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Produit produit = new Produit();
+
     // jhipster-needle-application-properties-property
+
+    public Produit getProduit() {
+        return produit;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Produit {
+
+        private final Bulk bulk = new Bulk();
+
+        private final Cache cache = new Cache();
+
+        private final Count count = new Count();
+
+        private final Export export = new Export();
+
+        private final Idempotency idempotency = new Idempotency();
+
+        private final Inserts inserts = new Inserts();
+
+        private final Listing listing = new Listing();
+
+        private final Loader loader = new Loader();
+
+        private final Replica replica = new Replica();
+
+        private final Stats stats = new Stats();
+
+        public Bulk getBulk() {
+            return bulk;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public Count getCount() {
+            return count;
+        }
+
+        public Export getExport() {
+            return export;
+        }
+
+        public Idempotency getIdempotency() {
+            return idempotency;
+        }
+
+        public Inserts getInserts() {
+            return inserts;
+        }
+
+        public Listing getListing() {
+            return listing;
+        }
+
+        public Loader getLoader() {
+            return loader;
+        }
+
+        public Replica getReplica() {
+            return replica;
+        }
+
+        public Stats getStats() {
+            return stats;
+        }
+
+        public static class Bulk {
+
+            /**
+             * Number of produits sent to Mongo in a single {@code bulkWrite}.
+             */
+            private int batchSize = 1000;
+
+            /**
+             * Whether bulk writes stop at the first failure by default.
+             */
+            private boolean ordered = false;
+
+            /**
+             * Maximum number of ids of a batch read, such as {@code GET /api/produits?ids=}.
+             */
+            private int maxIds = 1000;
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public boolean isOrdered() {
+                return ordered;
+            }
+
+            public void setOrdered(boolean ordered) {
+                this.ordered = ordered;
+            }
+
+            public int getMaxIds() {
+                return maxIds;
+            }
+
+            public void setMaxIds(int maxIds) {
+                this.maxIds = maxIds;
+            }
+        }
+
+        public static class Replica {
+
+            /**
+             * Whether {@code findOne} and the unfiltered listings are served from an in-memory replica of the produits, kept
+             * current by a change stream, which requires a replica set.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Lag of the replica behind the database above which reads fall back to Mongo, the replica writing a heartbeat every
+             * third of it so that a change stream gone silent is told from a collection without writes.
+             */
+            private Duration maxLag = Duration.ofSeconds(10);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getMaxLag() {
+                return maxLag;
+            }
+
+            public void setMaxLag(Duration maxLag) {
+                this.maxLag = maxLag;
+            }
+        }
+
+        public static class Stats {
+
+            /**
+             * Upper bounds of the buckets of the price histogram; a last bucket counts the prices above the last bound.
+             */
+            private List<Double> buckets = List.of(10D, 50D, 100D, 500D, 1000D);
+
+            /**
+             * How often the in-memory price statistics are checked against a Mongo aggregation, and rebuilt when they drifted.
+             */
+            private Duration reconciliationInterval = Duration.ofHours(1);
+
+            public List<Double> getBuckets() {
+                return buckets;
+            }
+
+            public void setBuckets(List<Double> buckets) {
+                this.buckets = buckets;
+            }
+
+            public Duration getReconciliationInterval() {
+                return reconciliationInterval;
+            }
+
+            public void setReconciliationInterval(Duration reconciliationInterval) {
+                this.reconciliationInterval = reconciliationInterval;
+            }
+        }
+
+        public static class Export {
+
+            /**
+             * Number of produits read from the export cursor, and written to the response, at a time.
+             */
+            private int batchSize = 1000;
+
+            /**
+             * Whether the export reads a single point in time of the collection, with the {@code snapshot} read concern.
+             * This requires a replica set, and an export lasting longer than the snapshot history of Mongo (5 minutes by
+             * default, see {@code minSnapshotHistoryWindowInSeconds}) fails with {@code SnapshotTooOld}, truncating a response
+             * already started: a slow client downloading a large catalog may hit it. Otherwise, the produits are read in the
+             * order of their ids, each one once, as they are when the cursor reaches them.
+             */
+            private boolean snapshot = false;
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public boolean isSnapshot() {
+                return snapshot;
+            }
+
+            public void setSnapshot(boolean snapshot) {
+                this.snapshot = snapshot;
+            }
+        }
+
+        public static class Idempotency {
+
+            /**
+             * How long the {@code Idempotency-Key} of a produit creation replays its response.
+             */
+            private Duration timeToLive = Duration.ofHours(24);
+
+            /**
+             * How long a key stays claimed by a creation still in progress, after which a retry takes it over: a creation
+             * interrupted before recording its produit only blocks the key this long.
+             */
+            private Duration inProgressTimeout = Duration.ofSeconds(30);
+
+            /**
+             * Maximum number of keys kept in memory, in front of the Mongo collection.
+             */
+            private long cacheMaxSize = 10_000;
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getInProgressTimeout() {
+                return inProgressTimeout;
+            }
+
+            public void setInProgressTimeout(Duration inProgressTimeout) {
+                this.inProgressTimeout = inProgressTimeout;
+            }
+
+            public long getCacheMaxSize() {
+                return cacheMaxSize;
+            }
+
+            public void setCacheMaxSize(long cacheMaxSize) {
+                this.cacheMaxSize = cacheMaxSize;
+            }
+        }
+
+        public static class Inserts {
+
+            /**
+             * Whether the produits created concurrently are buffered and inserted together with a single {@code insertMany}.
+             */
+            private boolean groupCommit = false;
+
+            /**
+             * How long a created produit may wait for others before being inserted.
+             */
+            private Duration linger = Duration.ofMillis(5);
+
+            /**
+             * Number of buffered produits which triggers the {@code insertMany} before the end of the linger time.
+             */
+            private int maxBatchSize = 100;
+
+            public boolean isGroupCommit() {
+                return groupCommit;
+            }
+
+            public void setGroupCommit(boolean groupCommit) {
+                this.groupCommit = groupCommit;
+            }
+
+            public Duration getLinger() {
+                return linger;
+            }
+
+            public void setLinger(Duration linger) {
+                this.linger = linger;
+            }
+
+            public int getMaxBatchSize() {
+                return maxBatchSize;
+            }
+
+            public void setMaxBatchSize(int maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+            }
+        }
+
+        public static class Listing {
+
+            /**
+             * Whether {@code GET /api/produits} serves the last response of the same query, with a {@code Warning} header, when
+             * Mongo is slow or failing.
+             */
+            private boolean serveStale = true;
+
+            /**
+             * How long a page read from Mongo is awaited before a previous response of the same query is served instead.
+             */
+            private Duration latencyBudget = Duration.ofMillis(500);
+
+            /**
+             * How old a previous response may be to be served instead of a slow or failed read.
+             */
+            private Duration maxStaleness = Duration.ofMinutes(5);
+
+            /**
+             * Maximum number of queries whose last response is kept.
+             */
+            private long maxSize = 1000;
+
+            public boolean isServeStale() {
+                return serveStale;
+            }
+
+            public void setServeStale(boolean serveStale) {
+                this.serveStale = serveStale;
+            }
+
+            public Duration getLatencyBudget() {
+                return latencyBudget;
+            }
+
+            public void setLatencyBudget(Duration latencyBudget) {
+                this.latencyBudget = latencyBudget;
+            }
+
+            public Duration getMaxStaleness() {
+                return maxStaleness;
+            }
+
+            public void setMaxStaleness(Duration maxStaleness) {
+                this.maxStaleness = maxStaleness;
+            }
+
+            public long getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(long maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+
+        public static class Loader {
+
+            /**
+             * How long the ids of concurrent {@code findById} are collected before being read with a single {@code $in} query
+             * when no query is in flight, zero to read them at once. The ids requested while a query is in flight are always
+             * read together when it completes.
+             */
+            private Duration window = Duration.ZERO;
+
+            /**
+             * Number of ids which triggers the query without waiting.
+             */
+            private int maxBatchSize = 100;
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public int getMaxBatchSize() {
+                return maxBatchSize;
+            }
+
+            public void setMaxBatchSize(int maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+            }
+        }
+
+        public static class Cache {
+
+            /**
+             * Maximum number of produits kept in the cache of {@code findOne}.
+             */
+            private long maxSize = 10_000;
+
+            /**
+             * How long a cached produit is served after being read from Mongo.
+             */
+            private Duration timeToLive = Duration.ofMinutes(10);
+
+            public long getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(long maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+        }
+
+        public static class Count {
+
+            public enum Mode {
+                /**
+                 * {@code countDocuments} on every listing.
+                 */
+                EXACT,
+                /**
+                 * {@code estimatedDocumentCount}, read from the collection metadata.
+                 */
+                ESTIMATED,
+                /**
+                 * An exact count, reused until a produit is written or {@link #timeToLive} elapses.
+                 */
+                CACHED,
+                /**
+                 * No count at all: listings only advertise the previous and next pages.
+                 */
+                NONE,
+            }
+
+            /**
+             * How the total number of produits is computed for the listings without filter.
+             */
+            private Mode mode = Mode.EXACT;
+
+            /**
+             * How long a cached count is reused, in the {@code CACHED} mode.
+             */
+            private Duration timeToLive = Duration.ofMinutes(1);
+
+            /**
+             * Maximum number of produits counted for a filtered listing; beyond it the count is only a lower bound.
+             */
+            private long limit = 10_000;
+
+            public Mode getMode() {
+                return mode;
+            }
+
+            public void setMode(Mode mode) {
+                this.mode = mode;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public long getLimit() {
+                return limit;
+            }
+
+            public void setLimit(long limit) {
+                this.limit = limit;
+            }
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -0,0 +1,56 @@
+package com.diti5.exam.config;
+
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.ProduitIdempotencyKey;
+import com.diti5.exam.service.ProduitIdempotency;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Clock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfiguration {
+
+    public static final String PRODUIT_CACHE = "produit";
+    public static final String PRODUIT_IDEMPOTENCY_CACHE = "produit-idempotency";
+
+    /**
+     * Read-through cache of the produits by id, publishing the {@code cache.gets}, {@code cache.evictions}, ... meters tagged
+     * {@code cache=produit}.
+     */
+    @Bean
+    public AsyncCache<String, Produit> produitCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Produit.Cache cache = applicationProperties.getProduit().getCache();
+        return CaffeineCacheMetrics.monitor(
+            meterRegistry,
+            Caffeine.newBuilder().maximumSize(cache.getMaxSize()).expireAfterWrite(cache.getTimeToLive()).recordStats().buildAsync(),
+            PRODUIT_CACHE
+        );
+    }
+
+    /**
+     * Hot cache of the completed {@code Idempotency-Key} of produit creations, in front of their Mongo collection. The entries
+     * expire with their key.
+     */
+    @Bean
+    public Cache<String, ProduitIdempotencyKey> produitIdempotencyCache(
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Produit.Idempotency idempotency = applicationProperties.getProduit().getIdempotency();
+        return CaffeineCacheMetrics.monitor(
+            meterRegistry,
+            Caffeine
+                .newBuilder()
+                .maximumSize(idempotency.getCacheMaxSize())
+                .expireAfter(ProduitIdempotency.cacheExpiry(Clock.systemUTC()))
+                .recordStats()
+                .<String, ProduitIdempotencyKey>build(),
+            PRODUIT_IDEMPOTENCY_CACHE
+        );
+    }
+}
@@ -1,13 +1,34 @@
 package com.diti5.exam.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Configuration
 public class JacksonConfiguration {
 
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
     /**
      * Support for Java date and time API.
      * @return the corresponding Jackson module.
@@ -21,4 +42,74 @@ public class JacksonConfiguration {
     public Jdk8Module jdk8TimeModule() {
         return new Jdk8Module();
     }
+
+    /**
+     * Binary alternatives to JSON, negotiated with the {@code Accept} and {@code Content-Type} headers: {@code application/cbor}
+     * and {@code application/x-jackson-smile}. They are built like the JSON {@link ObjectMapper}, with the same modules and
+     * features.
+     * @return the customizer registering the CBOR and Smile codecs.
+     */
+    @Bean
+    public CodecCustomizer binaryJacksonCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cborMapper = builder.factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        return configurer -> {
+            configurer.customCodecs().registerWithDefaultConfig(new CborDecoder(cborMapper));
+            configurer.customCodecs().registerWithDefaultConfig(new CborEncoder(cborMapper));
+            // Smile codecs are registered by default, but with a mapper ignoring the configuration of the application
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE));
+        };
+    }
+
+    /**
+     * CBOR encoder writing values, including the bodies of {@code ResponseEntity}, instead of rejecting every publisher: a
+     * {@link Flux} is written as a single CBOR array once complete.
+     */
+    static class CborEncoder extends Jackson2CborEncoder {
+
+        CborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(
+            Publisher<?> inputStream,
+            DataBufferFactory bufferFactory,
+            ResolvableType elementType,
+            MimeType mimeType,
+            Map<String, Object> hints
+        ) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux
+                .from(inputStream)
+                .collectList()
+                .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                .flux();
+        }
+    }
+
+    /**
+     * CBOR decoder reading a {@link Flux} from a single CBOR array, the counterpart of {@link CborEncoder}.
+     */
+    static class CborDecoder extends Jackson2CborDecoder {
+
+        CborDecoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<Object> decode(
+            Publisher<DataBuffer> input,
+            ResolvableType elementType,
+            MimeType mimeType,
+            Map<String, Object> hints
+        ) {
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return decodeToMono(input, listType, mimeType, hints).flatMapIterable(values -> (List<?>) values);
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.diti5.exam.config.dbmigrations;
+
+import com.diti5.exam.domain.Produit;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+/**
+ * Creates the compound indexes serving the produit filters combined with a sort on the other property:
+ * the sort key comes first and the filtered key second, so a page is read in order without an in-memory sort.
+ */
+@ChangeUnit(id = "produit-filter-indexes", order = "003")
+public class ProduitFilterIndexesMigration {
+
+    private static final String NOM_PRIX_INDEX = "nom_prix";
+    private static final String PRIX_NOM_INDEX = "prix_nom";
+
+    private final MongoTemplate template;
+
+    public ProduitFilterIndexesMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void changeSet() {
+        IndexOperations indexOps = template.indexOps(Produit.class);
+        indexOps.ensureIndex(new Index().on("nom", Sort.Direction.ASC).on("prix", Sort.Direction.ASC).named(NOM_PRIX_INDEX));
+        indexOps.ensureIndex(new Index().on("prix", Sort.Direction.ASC).on("nom", Sort.Direction.ASC).named(PRIX_NOM_INDEX));
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        IndexOperations indexOps = template.indexOps(Produit.class);
+        indexOps.dropIndex(NOM_PRIX_INDEX);
+        indexOps.dropIndex(PRIX_NOM_INDEX);
+    }
+}
@@ -0,0 +1,38 @@
+package com.diti5.exam.config.dbmigrations;
+
+import com.diti5.exam.domain.ProduitIdempotencyKey;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import java.time.Duration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Creates the TTL index removing the {@link ProduitIdempotencyKey} once expired. Each key holds its own expiry time, so that
+ * changing {@code application.produit.idempotency.time-to-live} does not require changing the index.
+ */
+@ChangeUnit(id = "produit-idempotency-key-ttl-index", order = "005")
+public class ProduitIdempotencyKeyMigration {
+
+    private static final String EXPIRES_AT_INDEX = "expires_at";
+
+    private final MongoTemplate template;
+
+    public ProduitIdempotencyKeyMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void changeSet() {
+        template
+            .indexOps(ProduitIdempotencyKey.class)
+            .ensureIndex(new Index().on("expires_at", Sort.Direction.ASC).expire(Duration.ZERO).named(EXPIRES_AT_INDEX));
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        template.indexOps(ProduitIdempotencyKey.class).dropIndex(EXPIRES_AT_INDEX);
+    }
+}
@@ -0,0 +1,40 @@
+package com.diti5.exam.config.dbmigrations;
+
+import com.diti5.exam.domain.Produit;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+/**
+ * Creates the {@code (property, _id)} indexes backing the keyset pagination of produits.
+ */
+@ChangeUnit(id = "produit-keyset-indexes", order = "002")
+public class ProduitIndexesMigration {
+
+    private static final String NOM_ID_INDEX = "nom_id";
+    private static final String PRIX_ID_INDEX = "prix_id";
+
+    private final MongoTemplate template;
+
+    public ProduitIndexesMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void changeSet() {
+        IndexOperations indexOps = template.indexOps(Produit.class);
+        indexOps.ensureIndex(new Index().on("nom", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named(NOM_ID_INDEX));
+        indexOps.ensureIndex(new Index().on("prix", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named(PRIX_ID_INDEX));
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        IndexOperations indexOps = template.indexOps(Produit.class);
+        indexOps.dropIndex(NOM_ID_INDEX);
+        indexOps.dropIndex(PRIX_ID_INDEX);
+    }
+}
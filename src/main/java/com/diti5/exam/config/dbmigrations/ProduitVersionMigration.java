@@ -0,0 +1,36 @@
+package com.diti5.exam.config.dbmigrations;
+
+import com.diti5.exam.domain.Produit;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Sets the version of the produits written before {@link Produit#getVersion()} existed, so that their updates are checked too:
+ * without a version, Spring Data would consider them as new and insert them again.
+ */
+@ChangeUnit(id = "produit-version", order = "004")
+public class ProduitVersionMigration {
+
+    private static final String VERSION = "version";
+
+    private final MongoTemplate template;
+
+    public ProduitVersionMigration(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Execution
+    public void changeSet() {
+        template.updateMulti(Query.query(Criteria.where(VERSION).exists(false)), new Update().set(VERSION, 0L), Produit.class);
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        template.updateMulti(new Query(), new Update().unset(VERSION), Produit.class);
+    }
+}
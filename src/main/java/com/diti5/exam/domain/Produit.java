@@ -2,6 +2,7 @@ package com.diti5.exam.domain;
 
 import java.io.Serializable;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -26,6 +27,13 @@ public class Produit implements Serializable {
     @Field("prix")
     private Double prix;
 
+    /**
+     * Incremented on every write, so that an update based on a stale read fails instead of overwriting.
+     */
+    @Version
+    @Field("version")
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public String getId() {
@@ -80,6 +88,19 @@ public class Produit implements Serializable {
         this.prix = prix;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Produit version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -107,6 +128,7 @@ public class Produit implements Serializable {
             ", description='" + getDescription() + "'" +
             ", nom='" + getNom() + "'" +
             ", prix=" + getPrix() +
+            ", version=" + getVersion() +
             "}";
     }
 }
@@ -0,0 +1,100 @@
+package com.diti5.exam.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * The {@code Idempotency-Key} of a produit creation, and the produit it created, removed by a TTL index once expired.
+ */
+@Document(collection = "produit_idempotency_key")
+public class ProduitIdempotencyKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The login of the user followed by the key, so that users cannot replay the creations of each other.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Hash of the request which used the key first, to reject the same key used for another request.
+     */
+    @Field("request_hash")
+    private String requestHash;
+
+    /**
+     * The produit as created, or {@code null} while the creation is in progress.
+     */
+    @Field("produit")
+    private Produit produit;
+
+    @Field("expires_at")
+    private Instant expiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public ProduitIdempotencyKey id(String id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public ProduitIdempotencyKey requestHash(String requestHash) {
+        this.setRequestHash(requestHash);
+        return this;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Produit getProduit() {
+        return produit;
+    }
+
+    public ProduitIdempotencyKey produit(Produit produit) {
+        this.setProduit(produit);
+        return this;
+    }
+
+    public void setProduit(Produit produit) {
+        this.produit = produit;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public ProduitIdempotencyKey expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitIdempotencyKey{" +
+            "id='" + id + "'" +
+            ", requestHash='" + requestHash + "'" +
+            ", produit=" + produit +
+            ", expiresAt=" + expiresAt +
+            "}";
+    }
+}
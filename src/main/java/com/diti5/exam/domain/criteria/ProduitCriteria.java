@@ -0,0 +1,152 @@
+package com.diti5.exam.domain.criteria;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.util.Objects;
+import org.springdoc.core.annotations.ParameterObject;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.*;
+
+/**
+ * Criteria class for the {@link com.diti5.exam.domain.Produit} entity. This class is used
+ * in {@link com.diti5.exam.web.rest.ProduitResource} to receive all the possible filtering options from
+ * the Http request parameters or body.
+ * For example the following could be a valid request:
+ * {@code /produits?nom.startsWith=Caf&prix.lessThanOrEqual=10&description.contains=bio}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+@ParameterObject
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProduitCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private StringFilter id;
+
+    private StringFilter description;
+
+    private PrefixStringFilter nom;
+
+    private DoubleFilter prix;
+
+    public ProduitCriteria() {}
+
+    public ProduitCriteria(ProduitCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.description = other.description == null ? null : other.description.copy();
+        this.nom = other.nom == null ? null : other.nom.copy();
+        this.prix = other.prix == null ? null : other.prix.copy();
+    }
+
+    @Override
+    public ProduitCriteria copy() {
+        return new ProduitCriteria(this);
+    }
+
+    public StringFilter getId() {
+        return id;
+    }
+
+    public StringFilter id() {
+        if (id == null) {
+            id = new StringFilter();
+        }
+        return id;
+    }
+
+    public void setId(StringFilter id) {
+        this.id = id;
+    }
+
+    public StringFilter getDescription() {
+        return description;
+    }
+
+    public StringFilter description() {
+        if (description == null) {
+            description = new StringFilter();
+        }
+        return description;
+    }
+
+    public void setDescription(StringFilter description) {
+        this.description = description;
+    }
+
+    public PrefixStringFilter getNom() {
+        return nom;
+    }
+
+    public PrefixStringFilter nom() {
+        if (nom == null) {
+            nom = new PrefixStringFilter();
+        }
+        return nom;
+    }
+
+    public void setNom(PrefixStringFilter nom) {
+        this.nom = nom;
+    }
+
+    public DoubleFilter getPrix() {
+        return prix;
+    }
+
+    public DoubleFilter prix() {
+        if (prix == null) {
+            prix = new DoubleFilter();
+        }
+        return prix;
+    }
+
+    public void setPrix(DoubleFilter prix) {
+        this.prix = prix;
+    }
+
+    /**
+     * @return {@code true} when no filter is set, i.e. when the criteria match every produit.
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return (
+            (id == null || id.equals(new StringFilter())) &&
+            (description == null || description.equals(new StringFilter())) &&
+            (nom == null || nom.equals(new PrefixStringFilter())) &&
+            (prix == null || prix.equals(new DoubleFilter()))
+        );
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ProduitCriteria that = (ProduitCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(description, that.description) &&
+            Objects.equals(nom, that.nom) &&
+            Objects.equals(prix, that.prix)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, description, nom, prix);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (description != null ? "description=" + description + ", " : "") +
+            (nom != null ? "nom=" + nom + ", " : "") +
+            (prix != null ? "prix=" + prix + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Criteria used to filter the domain objects.
+ */
+package com.diti5.exam.domain.criteria;
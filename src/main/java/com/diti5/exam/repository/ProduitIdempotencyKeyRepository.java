@@ -0,0 +1,11 @@
+package com.diti5.exam.repository;
+
+import com.diti5.exam.domain.ProduitIdempotencyKey;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data MongoDB reactive repository for the {@link ProduitIdempotencyKey} entity.
+ */
+@Repository
+public interface ProduitIdempotencyKeyRepository extends ReactiveMongoRepository<ProduitIdempotencyKey, String> {}
@@ -11,6 +11,6 @@ import reactor.core.publisher.Flux;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProduitRepository extends ReactiveMongoRepository<Produit, String> {
+public interface ProduitRepository extends ReactiveMongoRepository<Produit, String>, ProduitRepositoryInternal {
     Flux<Produit> findAllBy(Pageable pageable);
 }
@@ -0,0 +1,204 @@
+package com.diti5.exam.repository;
+
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import com.mongodb.bulk.BulkWriteResult;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import org.bson.BsonValue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom queries for the {@link Produit} entity that cannot be expressed as derived queries.
+ */
+public interface ProduitRepositoryInternal {
+    /**
+     * The collection holding the heartbeat of the produit replicas, watched along with the produits by {@link #watch(Instant)}.
+     */
+    String REPLICA_HEARTBEAT_COLLECTION = "produit_replica_heartbeat";
+
+    /**
+     * Returns a page of the produits matching the criteria.
+     *
+     * @param criteria the filters to apply.
+     * @param pageable the pagination information.
+     * @param fields the fields to read, or {@code null} to read them all.
+     * @return the matching produits, with {@code null} for the fields not read.
+     */
+    Flux<Produit> findByCriteria(ProduitCriteria criteria, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Returns the produit with the given id, reading only the given fields.
+     *
+     * @param id the id of the produit.
+     * @param fields the fields to read, or {@code null} to read them all.
+     * @return the produit, with {@code null} for the fields not read, or an empty {@link Mono} when no produit has this id.
+     */
+    Mono<Produit> findById(String id, Collection<String> fields);
+
+    /**
+     * Counts the produits matching the criteria.
+     *
+     * @param criteria the filters to apply.
+     * @return the number of matching produits.
+     */
+    Mono<Long> countByCriteria(ProduitCriteria criteria);
+
+    /**
+     * Counts the produits matching the criteria, stopping at the given limit.
+     *
+     * @param criteria the filters to apply.
+     * @param limit the maximum number of produits to count.
+     * @return the number of matching produits, at most {@code limit}.
+     */
+    Mono<Long> countByCriteria(ProduitCriteria criteria, long limit);
+
+    /**
+     * Returns the number of produits from the collection metadata, without scanning it.
+     *
+     * @return the estimated number of produits, which may be off after an unclean shutdown or in a sharded cluster.
+     */
+    Mono<Long> estimatedCount();
+
+    /**
+     * Keyset pagination: returns the produits matching the criteria strictly after the given key, ordered by the given property
+     * then by {@code _id}.
+     *
+     * @param criteria the filters to apply.
+     * @param order the sort order, on a single property.
+     * @param lastValue the value of the sort property of the last produit already returned.
+     * @param lastId the id of the last produit already returned, or {@code null} to start from the beginning.
+     * @param limit the maximum number of produits to return.
+     * @param fields the fields to read, or {@code null} to read them all.
+     * @return the next produits, with {@code null} for the fields not read.
+     */
+    Flux<Produit> findAllAfter(
+        ProduitCriteria criteria,
+        Sort.Order order,
+        Object lastValue,
+        String lastId,
+        int limit,
+        Collection<String> fields
+    );
+
+    /**
+     * Summarizes the prices of the produits with a single {@code $group} aggregation.
+     *
+     * @return the count, sum, minimum and maximum of the prices, over the produits having a price.
+     */
+    Mono<DoubleSummaryStatistics> summarizePrix();
+
+    /**
+     * Reads every produit, ordered by id, from a single cursor fetching them by batches as they are consumed.
+     *
+     * @param batchSize the number of produits fetched from Mongo at a time.
+     * @param snapshot whether to read with the {@code snapshot} read concern, so that the produits are read as of a single
+     * point in time, which requires a replica set and fails once the cursor outlives the snapshot history of Mongo.
+     * @return all the produits.
+     */
+    Flux<Produit> streamAll(int batchSize, boolean snapshot);
+
+    /**
+     * Sets the non-null fields of the given produit, leaving the others untouched, and increments its version, as a single
+     * {@code findAndModify}.
+     *
+     * @param produit the id of the produit to update, the values to set, and the expected version if any.
+     * @return the produit after the update, or an empty {@link Mono} when no produit has this id, or this version.
+     */
+    Mono<Produit> updateNonNullFields(Produit produit);
+
+    /**
+     * Replaces every field of the given produit, whatever its version, and increments its version, as a single
+     * {@code findAndModify}.
+     *
+     * @param produit the id of the produit to replace, and its new values.
+     * @return the produit after the update, or an empty {@link Mono} when no produit has this id.
+     */
+    Mono<Produit> overwrite(Produit produit);
+
+    /**
+     * Replaces the fields, or inserts when missing, each produit by id in a single {@code bulkWrite}, incrementing the versions.
+     * <p>
+     * Write errors are reported as a {@link BulkOperationException} carrying the per-operation errors and the partial result.
+     *
+     * @param produits the produits to write, all with an id.
+     * @param ordered whether Mongo stops at the first failing write.
+     * @return the result of the bulk write, where upserts identify the inserted produits.
+     */
+    Mono<BulkWriteResult> upsertAll(List<Produit> produits, boolean ordered);
+
+    /**
+     * Returns the ids of the produits matching the criteria.
+     *
+     * @param criteria the filters to apply.
+     * @param limit the maximum number of ids to return.
+     * @return the ids, read from a projection on {@code _id}.
+     */
+    Flux<String> findIdsByCriteria(ProduitCriteria criteria, int limit);
+
+    /**
+     * Returns the ids of the produits matching the criteria, in the order of the ids, after an id.
+     *
+     * @param criteria the filters to apply.
+     * @param afterId the id the returned ids follow, or {@code null} to start from the first one.
+     * @param limit the maximum number of ids to return.
+     * @return the ids, read from a projection on {@code _id}.
+     */
+    Flux<String> findIdsByCriteria(ProduitCriteria criteria, String afterId, int limit);
+
+    /**
+     * Deletes the produits with the given ids with a single {@code deleteMany}.
+     *
+     * @param ids the ids of the produits to delete.
+     * @return the number of deleted produits.
+     */
+    Mono<Long> deleteAllByIdIn(Collection<String> ids);
+
+    /**
+     * Sets the price of the produits with the given ids still matching the criteria and having a price to
+     * {@code prix * factor + increment}, and increments their versions, with a single {@code updateMany}.
+     * <p>
+     * A plain {@code $mul} or {@code $inc} is sent when the prices are not rounded, otherwise an update pipeline computing and
+     * rounding the new prices.
+     *
+     * @param criteria the filters to apply.
+     * @param ids the ids of the produits to update.
+     * @param factor the factor the prices are multiplied by.
+     * @param increment the amount added to the prices, after the multiplication.
+     * @param scale the number of decimal places the new prices are rounded to, or {@code null} to keep them unrounded.
+     * @return the number of modified produits.
+     */
+    Mono<Long> adjustPrix(ProduitCriteria criteria, Collection<String> ids, double factor, double increment, Integer scale);
+
+    /**
+     * Watches the inserts, updates, replacements and deletions of produits with a change stream, which requires a replica set.
+     *
+     * @param resumeToken the resume token of the last event already received, or {@code null} to start from now.
+     * @return the infinite stream of changes, with the full produit for every change but deletions.
+     */
+    Flux<ChangeStreamEvent<Produit>> watch(BsonValue resumeToken);
+
+    /**
+     * Watches the changes of produits like {@link #watch(BsonValue)}, starting from the given time, which may be in the past
+     * within the oplog window, along with the heartbeats written by {@link #heartbeat()}.
+     *
+     * @param startAt the time of the first change to receive, to the second.
+     * @return the infinite stream of changes, with the full produit for every change but deletions, the heartbeats being
+     * those from the {@value #REPLICA_HEARTBEAT_COLLECTION} collection.
+     */
+    Flux<ChangeStreamEvent<Produit>> watch(Instant startAt);
+
+    /**
+     * Writes a heartbeat, which every change stream opened by {@link #watch(Instant)} receives even when no produit changes.
+     *
+     * @return a {@link Mono} completing once the heartbeat is written.
+     */
+    Mono<Void> heartbeat();
+}
@@ -0,0 +1,421 @@
+package com.diti5.exam.repository;
+
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.PrefixStringFilter;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ReadConcern;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.stream.Stream;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.MongoRegexCreator;
+import org.springframework.data.mongodb.core.query.MongoRegexCreator.MatchMode;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Implementation of {@link ProduitRepositoryInternal} backed by a {@link ReactiveMongoTemplate}.
+ */
+class ProduitRepositoryInternalImpl implements ProduitRepositoryInternal {
+
+    private static final String ID = "id";
+
+    private static final String VERSION = "version";
+
+    private static final String PRIX = "prix";
+
+    private static final Document WATCHED_OPERATIONS = new Document(
+        "$match",
+        new Document(
+            "operationType",
+            new Document(
+                "$in",
+                Stream
+                    .of(OperationType.INSERT, OperationType.UPDATE, OperationType.REPLACE, OperationType.DELETE)
+                    .map(OperationType::getValue)
+                    .toList()
+            )
+        )
+    );
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ProduitRepositoryInternalImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<Produit> findByCriteria(ProduitCriteria criteria, Pageable pageable, Collection<String> fields) {
+        return mongoTemplate.find(withFields(Query.query(toCriteria(criteria)).with(pageable), fields), Produit.class);
+    }
+
+    @Override
+    public Mono<Produit> findById(String id, Collection<String> fields) {
+        return mongoTemplate.findOne(withFields(Query.query(Criteria.where(ID).is(id)), fields), Produit.class);
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(ProduitCriteria criteria) {
+        return mongoTemplate.count(Query.query(toCriteria(criteria)), Produit.class);
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(ProduitCriteria criteria, long limit) {
+        // The limit of the query is passed to countDocuments, which stops scanning once it is reached
+        return mongoTemplate.count(Query.query(toCriteria(criteria)).limit(Math.toIntExact(limit)), Produit.class);
+    }
+
+    @Override
+    public Mono<Long> estimatedCount() {
+        return mongoTemplate.estimatedCount(Produit.class);
+    }
+
+    @Override
+    public Flux<Produit> findAllAfter(
+        ProduitCriteria criteria,
+        Sort.Order order,
+        Object lastValue,
+        String lastId,
+        int limit,
+        Collection<String> fields
+    ) {
+        Criteria filter = toCriteria(criteria);
+        Query query = Query.query(lastId == null ? filter : new Criteria().andOperator(filter, keysetCriteria(order, lastValue, lastId)));
+        query.limit(limit);
+        if (ID.equals(order.getProperty())) {
+            query.with(Sort.by(order.getDirection(), ID));
+        } else {
+            query.with(Sort.by(order.getDirection(), order.getProperty(), ID));
+        }
+        return mongoTemplate.find(withFields(query, fields), Produit.class);
+    }
+
+    @Override
+    public Mono<DoubleSummaryStatistics> summarizePrix() {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where(PRIX).ne(null)),
+            Aggregation.group().count().as("count").sum(PRIX).as("sum").min(PRIX).as("min").max(PRIX).as("max")
+        );
+        return mongoTemplate
+            .aggregate(aggregation, Produit.class, Document.class)
+            .next()
+            .map(summary ->
+                new DoubleSummaryStatistics(
+                    summary.get("count", Number.class).longValue(),
+                    summary.get("min", Number.class).doubleValue(),
+                    summary.get("max", Number.class).doubleValue(),
+                    summary.get("sum", Number.class).doubleValue()
+                )
+            )
+            .defaultIfEmpty(new DoubleSummaryStatistics());
+    }
+
+    @Override
+    public Flux<Produit> streamAll(int batchSize, boolean snapshot) {
+        Query query = new Query().with(Sort.by(ID)).cursorBatchSize(batchSize);
+        if (snapshot) {
+            query.withReadConcern(ReadConcern.SNAPSHOT);
+        }
+        return mongoTemplate.find(query, Produit.class);
+    }
+
+    @Override
+    public Mono<Produit> updateNonNullFields(Produit produit) {
+        Criteria criteria = Criteria.where(ID).is(produit.getId());
+        if (produit.getVersion() != null) {
+            criteria.and(VERSION).is(produit.getVersion());
+        }
+        Query query = Query.query(criteria);
+        Update update = new Update();
+        if (produit.getDescription() != null) {
+            update.set("description", produit.getDescription());
+        }
+        if (produit.getNom() != null) {
+            update.set("nom", produit.getNom());
+        }
+        if (produit.getPrix() != null) {
+            update.set("prix", produit.getPrix());
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            // Nothing changes: neither write nor bump the version
+            return mongoTemplate.findOne(query, Produit.class);
+        }
+        update.inc(VERSION, 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Produit.class);
+    }
+
+    @Override
+    public Mono<Produit> overwrite(Produit produit) {
+        Update update = new Update();
+        setOrUnset(update, "description", produit.getDescription());
+        setOrUnset(update, "nom", produit.getNom());
+        setOrUnset(update, "prix", produit.getPrix());
+        update.inc(VERSION, 1);
+        return mongoTemplate.findAndModify(
+            Query.query(Criteria.where(ID).is(produit.getId())),
+            update,
+            FindAndModifyOptions.options().returnNew(true),
+            Produit.class
+        );
+    }
+
+    private static void setOrUnset(Update update, String field, Object value) {
+        // Null fields are not written, as when the produit is saved
+        if (value != null) {
+            update.set(field, value);
+        } else {
+            update.unset(field);
+        }
+    }
+
+    @Override
+    public Mono<BulkWriteResult> upsertAll(List<Produit> produits, boolean ordered) {
+        ReactiveBulkOperations bulkOps = mongoTemplate.bulkOps(ordered ? BulkMode.ORDERED : BulkMode.UNORDERED, Produit.class);
+        // An upsert setting every field rather than a replacement, so that the version is incremented
+        produits.forEach(produit ->
+            bulkOps.upsert(
+                Query.query(Criteria.where(ID).is(produit.getId())),
+                new Update()
+                    .set("description", produit.getDescription())
+                    .set("nom", produit.getNom())
+                    .set("prix", produit.getPrix())
+                    .inc(VERSION, 1)
+            )
+        );
+        return bulkOps
+            .execute()
+            .onErrorMap(
+                e -> bulkWriteException(e) != null,
+                e -> new BulkOperationException(e.getMessage(), bulkWriteException(e))
+            );
+    }
+
+    @Override
+    public Flux<String> findIdsByCriteria(ProduitCriteria criteria, int limit) {
+        Query query = Query.query(toCriteria(criteria)).limit(limit);
+        query.fields().include(ID);
+        return mongoTemplate.find(query, Produit.class).map(Produit::getId);
+    }
+
+    @Override
+    public Flux<String> findIdsByCriteria(ProduitCriteria criteria, String afterId, int limit) {
+        Criteria filter = toCriteria(criteria);
+        Query query = Query
+            .query(afterId == null ? filter : new Criteria().andOperator(filter, Criteria.where(ID).gt(afterId)))
+            .with(Sort.by(ID))
+            .limit(limit);
+        query.fields().include(ID);
+        return mongoTemplate.find(query, Produit.class).map(Produit::getId);
+    }
+
+    @Override
+    public Flux<ChangeStreamEvent<Produit>> watch(BsonValue resumeToken) {
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = watchOptions();
+        if (resumeToken != null) {
+            options.resumeAfter(resumeToken);
+        }
+        return mongoTemplate.changeStream(mongoTemplate.getCollectionName(Produit.class), options.build(), Produit.class);
+    }
+
+    @Override
+    public Flux<ChangeStreamEvent<Produit>> watch(Instant startAt) {
+        // Watches the whole database, restricted to the produits and the heartbeats
+        Document filter = new Document(WATCHED_OPERATIONS.get("$match", Document.class)).append(
+            "ns.coll",
+            new Document("$in", List.of(mongoTemplate.getCollectionName(Produit.class), REPLICA_HEARTBEAT_COLLECTION))
+        );
+        return mongoTemplate.changeStream(
+            null,
+            watchOptions().filter(new Document("$match", filter)).resumeAt(startAt).build(),
+            Produit.class
+        );
+    }
+
+    @Override
+    public Mono<Void> heartbeat() {
+        return mongoTemplate
+            .upsert(Query.query(Criteria.where("_id").is("heartbeat")), new Update().currentDate("at"), REPLICA_HEARTBEAT_COLLECTION)
+            .then();
+    }
+
+    private static ChangeStreamOptions.ChangeStreamOptionsBuilder watchOptions() {
+        return ChangeStreamOptions.builder().filter(WATCHED_OPERATIONS).fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+    }
+
+    @Override
+    public Mono<Long> deleteAllByIdIn(Collection<String> ids) {
+        return mongoTemplate.remove(Query.query(Criteria.where(ID).in(ids)), Produit.class).map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Long> adjustPrix(ProduitCriteria criteria, Collection<String> ids, double factor, double increment, Integer scale) {
+        // Without a price, $mul and $inc would set one
+        Query query = Query.query(
+            new Criteria().andOperator(toCriteria(criteria), Criteria.where(ID).in(ids), Criteria.where(PRIX).ne(null))
+        );
+        UpdateDefinition update;
+        if (scale == null && increment == 0) {
+            update = new Update().multiply(PRIX, factor).inc(VERSION, 1);
+        } else if (scale == null && factor == 1) {
+            update = new Update().inc(PRIX, increment).inc(VERSION, 1);
+        } else {
+            AggregationExpression prix = ArithmeticOperators.Add
+                .valueOf(ArithmeticOperators.Multiply.valueOf(PRIX).multiplyBy(factor))
+                .add(increment);
+            if (scale != null) {
+                prix = ArithmeticOperators.Round.roundValueOf(prix).place(scale);
+            }
+            update =
+                AggregationUpdate
+                    .update()
+                    .set(PRIX)
+                    .toValue(prix)
+                    .set(VERSION)
+                    .toValue(ArithmeticOperators.Add.valueOf(ConditionalOperators.ifNull(VERSION).then(0)).add(1));
+        }
+        return mongoTemplate.updateMulti(query, update, Produit.class).map(UpdateResult::getModifiedCount);
+    }
+
+    /**
+     * Translates the JHipster filters of the criteria into a Mongo query predicate.
+     */
+    private static Criteria toCriteria(ProduitCriteria criteria) {
+        List<Criteria> conditions = new ArrayList<>();
+        addConditions(conditions, ID, criteria.getId());
+        addConditions(conditions, "description", criteria.getDescription());
+        addConditions(conditions, "nom", criteria.getNom());
+        addConditions(conditions, "prix", criteria.getPrix());
+        return conditions.isEmpty() ? new Criteria() : new Criteria().andOperator(conditions);
+    }
+
+    private static void addConditions(List<Criteria> conditions, String property, Filter<?> filter) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getEquals() != null) {
+            conditions.add(Criteria.where(property).is(filter.getEquals()));
+        }
+        if (filter.getNotEquals() != null) {
+            conditions.add(Criteria.where(property).ne(filter.getNotEquals()));
+        }
+        if (filter.getIn() != null) {
+            conditions.add(Criteria.where(property).in(filter.getIn()));
+        }
+        if (filter.getNotIn() != null) {
+            conditions.add(Criteria.where(property).nin(filter.getNotIn()));
+        }
+        if (filter.getSpecified() != null) {
+            conditions.add(
+                Boolean.TRUE.equals(filter.getSpecified()) ? Criteria.where(property).ne(null) : Criteria.where(property).is(null)
+            );
+        }
+        if (filter instanceof RangeFilter<?> rangeFilter) {
+            if (rangeFilter.getGreaterThan() != null) {
+                conditions.add(Criteria.where(property).gt(rangeFilter.getGreaterThan()));
+            }
+            if (rangeFilter.getGreaterThanOrEqual() != null) {
+                conditions.add(Criteria.where(property).gte(rangeFilter.getGreaterThanOrEqual()));
+            }
+            if (rangeFilter.getLessThan() != null) {
+                conditions.add(Criteria.where(property).lt(rangeFilter.getLessThan()));
+            }
+            if (rangeFilter.getLessThanOrEqual() != null) {
+                conditions.add(Criteria.where(property).lte(rangeFilter.getLessThanOrEqual()));
+            }
+        }
+        if (filter instanceof StringFilter stringFilter) {
+            if (stringFilter.getContains() != null) {
+                conditions.add(Criteria.where(property).regex(toRegex(stringFilter.getContains(), MatchMode.CONTAINING)));
+            }
+            if (stringFilter.getDoesNotContain() != null) {
+                conditions.add(Criteria.where(property).not().regex(toRegex(stringFilter.getDoesNotContain(), MatchMode.CONTAINING)));
+            }
+        }
+        if (filter instanceof PrefixStringFilter prefixFilter && prefixFilter.getStartsWith() != null) {
+            // An anchored, case sensitive regex is answered by a bounded scan of the index on the property
+            conditions.add(Criteria.where(property).regex(toRegex(prefixFilter.getStartsWith(), MatchMode.STARTING_WITH)));
+        }
+    }
+
+    private static String toRegex(String value, MatchMode matchMode) {
+        return MongoRegexCreator.INSTANCE.toRegularExpression(value, matchMode);
+    }
+
+    /**
+     * The reactive template translates driver errors like any other exception, so the bulk write details may sit in the cause.
+     */
+    private static MongoBulkWriteException bulkWriteException(Throwable e) {
+        if (e instanceof BulkOperationException) {
+            return null;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulkWriteException) {
+                return bulkWriteException;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Restricts the query to a projection on the given fields, so that Mongo neither reads nor sends the others.
+     */
+    private static Query withFields(Query query, Collection<String> fields) {
+        if (fields != null) {
+            fields.forEach(query.fields()::include);
+        }
+        return query;
+    }
+
+    /**
+     * Builds the range predicate matching every document that sorts after {@code (lastValue, lastId)}.
+     * Mongo sorts {@code null} before any other value, so documents without the property come first
+     * in ascending order and last in descending order.
+     */
+    private Criteria keysetCriteria(Sort.Order order, Object lastValue, String lastId) {
+        String property = order.getProperty();
+        boolean ascending = order.isAscending();
+        Criteria afterId = ascending ? Criteria.where(ID).gt(lastId) : Criteria.where(ID).lt(lastId);
+        if (ID.equals(property)) {
+            return afterId;
+        }
+        Criteria sameValueAfterId = new Criteria().andOperator(Criteria.where(property).is(lastValue), afterId);
+        if (lastValue == null) {
+            return ascending ? new Criteria().orOperator(sameValueAfterId, Criteria.where(property).ne(null)) : sameValueAfterId;
+        }
+        if (ascending) {
+            return new Criteria().orOperator(Criteria.where(property).gt(lastValue), sameValueAfterId);
+        }
+        return new Criteria().orOperator(Criteria.where(property).lt(lastValue), sameValueAfterId, Criteria.where(property).is(null));
+    }
+}
@@ -0,0 +1,106 @@
+package com.diti5.exam.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Collects the keys loaded concurrently while a query is in flight, and loads them with a single query whose results are
+ * fanned out to the callers once it completes.
+ * <p>
+ * When no query is in flight, a key is loaded at once, or after an optional window collecting more keys, so that an idle
+ * application sends the same queries as without batching. A batch reaching the maximum size is loaded at once. The size of the
+ * batches is recorded by a distribution summary, tagged with the name of the loader.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the loaded values.
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<K, Mono<V>> loadOne;
+
+    private final Function<List<K>, Flux<V>> loadMany;
+
+    private final Function<V, K> keyOf;
+
+    private final DistributionSummary batchSizes;
+
+    private final Batcher<Pending<K, V>> batcher;
+
+    /**
+     * @param meterName the name of the batch size meter.
+     * @param name the name of the loader, for the meter.
+     * @param loadOne loads the value of a single key.
+     * @param loadMany loads the values of many keys with one query, in any order and without the values not found.
+     * @param keyOf the key of a loaded value.
+     * @param window how long keys are collected when no query is in flight, zero to load them at once.
+     * @param maxBatchSize the number of keys which loads their batch without waiting.
+     * @param scheduler the scheduler ending the windows.
+     * @param registry the registry of the batch size meter.
+     */
+    public BatchLoader(
+        String meterName,
+        String name,
+        Function<K, Mono<V>> loadOne,
+        Function<List<K>, Flux<V>> loadMany,
+        Function<V, K> keyOf,
+        Duration window,
+        int maxBatchSize,
+        Scheduler scheduler,
+        MeterRegistry registry
+    ) {
+        this.loadOne = loadOne;
+        this.loadMany = loadMany;
+        this.keyOf = keyOf;
+        this.batchSizes =
+            DistributionSummary
+                .builder(meterName)
+                .tag("read", name)
+                .description("Number of keys loaded by a single query")
+                .register(registry);
+        this.batcher = new Batcher<>(this::dispatch, window, maxBatchSize, scheduler);
+    }
+
+    /**
+     * Loads the value of the key with the next batch. Cancelling the returned {@link Mono} does not remove the key from its
+     * batch.
+     *
+     * @param key the key to load.
+     * @return the value, or an empty {@link Mono} when there is none.
+     */
+    public Mono<V> load(K key) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            batcher.add(new Pending<>(key, future));
+            return Mono.fromFuture(future, true);
+        });
+    }
+
+    private Mono<Void> dispatch(List<Pending<K, V>> batch) {
+        Map<K, List<CompletableFuture<V>>> futures = new LinkedHashMap<>();
+        batch.forEach(entry -> futures.computeIfAbsent(entry.key(), k -> new ArrayList<>()).add(entry.future()));
+        batchSizes.record(futures.size());
+        Mono<Map<K, V>> loaded;
+        if (futures.size() == 1) {
+            K key = futures.keySet().iterator().next();
+            loaded = loadOne.apply(key).map(value -> Map.of(key, value)).defaultIfEmpty(Map.of());
+        } else {
+            loaded = loadMany.apply(List.copyOf(futures.keySet())).collectMap(keyOf);
+        }
+        return loaded
+            .doOnNext(values -> futures.forEach((key, waiting) -> waiting.forEach(future -> future.complete(values.get(key)))))
+            .doOnError(e -> futures.values().forEach(waiting -> waiting.forEach(future -> future.completeExceptionally(e))))
+            .then();
+    }
+
+    private record Pending<K, V>(K key, CompletableFuture<V> future) {}
+}
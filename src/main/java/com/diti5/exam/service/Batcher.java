@@ -0,0 +1,120 @@
+package com.diti5.exam.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Collects entries into batches, and hands each batch to a dispatch function.
+ * <p>
+ * When no batch is in flight, an entry is dispatched at once, or after a linger time collecting more entries if there is one.
+ * The entries arriving while a batch is in flight are dispatched together when it completes, so that batches grow with the
+ * load without delaying an idle application. A batch reaching the maximum size is dispatched at once in any case.
+ *
+ * @param <E> the type of the entries.
+ */
+class Batcher<E> {
+
+    private final Function<List<E>, Mono<Void>> dispatch;
+
+    private final Duration linger;
+
+    private final int maxBatchSize;
+
+    private final Scheduler scheduler;
+
+    /**
+     * The entries waiting for the next batch, guarded by the lock of this instance.
+     */
+    private List<E> pending = new ArrayList<>();
+
+    /**
+     * The end of the current linger time, guarded by the lock of this instance; {@code null} when none is running.
+     */
+    private Disposable flush;
+
+    /**
+     * Number of batches dispatched and not completed yet, guarded by the lock of this instance.
+     */
+    private int inFlight;
+
+    /**
+     * @param dispatch sends a batch, completing when it is done, whether it succeeded or not.
+     * @param linger how long entries are collected when no batch is in flight, zero to dispatch them at once.
+     * @param maxBatchSize the number of entries which are dispatched at once.
+     * @param scheduler the scheduler ending the linger times.
+     */
+    Batcher(Function<List<E>, Mono<Void>> dispatch, Duration linger, int maxBatchSize, Scheduler scheduler) {
+        this.dispatch = dispatch;
+        this.linger = linger;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Adds an entry to the next batch.
+     *
+     * @param entry the entry.
+     */
+    void add(E entry) {
+        List<E> batch = null;
+        synchronized (this) {
+            pending.add(entry);
+            if (pending.size() >= maxBatchSize || (inFlight == 0 && linger.isZero())) {
+                batch = takePending();
+            } else if (inFlight == 0 && flush == null) {
+                flush = scheduler.schedule(this::flush, linger.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        send(batch);
+    }
+
+    private void flush() {
+        List<E> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        send(batch);
+    }
+
+    /**
+     * Takes the pending entries, counting them as a batch in flight when there are any.
+     */
+    private List<E> takePending() {
+        if (flush != null) {
+            flush.dispose();
+            flush = null;
+        }
+        if (pending.isEmpty()) {
+            return null;
+        }
+        List<E> batch = pending;
+        pending = new ArrayList<>();
+        inFlight++;
+        return batch;
+    }
+
+    private void send(List<E> batch) {
+        if (batch == null) {
+            return;
+        }
+        dispatch.apply(batch).doFinally(signal -> completed()).subscribe(null, e -> {});
+    }
+
+    private void completed() {
+        List<E> batch = null;
+        synchronized (this) {
+            inFlight--;
+            // The entries which arrived meanwhile already waited for this batch
+            if (inFlight == 0) {
+                batch = takePending();
+            }
+        }
+        send(batch);
+    }
+}
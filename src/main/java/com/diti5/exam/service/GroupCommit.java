@@ -0,0 +1,124 @@
+package com.diti5.exam.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Buffers the writes submitted concurrently during a short linger time, or while the previous batch is being written, and
+ * sends them to the database with a single write, acknowledged once for the whole batch. A batch reaching the maximum size is
+ * sent at once.
+ * <p>
+ * When the write of a batch of many values fails, which may happen after some of them were written, each value is retried on
+ * its own, so that each caller gets its own outcome. The size of the batches is recorded by the {@value #BATCH_METER_NAME}
+ * meter, and the time a value waited for its batch by the {@value #LINGER_METER_NAME} meter, both tagged with the name of the
+ * write.
+ *
+ * @param <T> the type of the written values.
+ */
+public class GroupCommit<T> {
+
+    public static final String BATCH_METER_NAME = "produit.writes.batch";
+    public static final String LINGER_METER_NAME = "produit.writes.linger";
+
+    private final Logger log = LoggerFactory.getLogger(GroupCommit.class);
+
+    private final Function<List<T>, Flux<T>> write;
+
+    private final Function<T, Mono<T>> retry;
+
+    private final DistributionSummary batchSizes;
+
+    private final Timer lingerTimer;
+
+    private final Batcher<Pending<T>> batcher;
+
+    /**
+     * @param name the name of the write, for the meters.
+     * @param write writes many values at once, returning them as written, in the same order.
+     * @param retry writes a single value of a failed batch, which must succeed whether or not the batch wrote it.
+     * @param linger how long writes are buffered before their batch is sent, when no batch is being written.
+     * @param maxBatchSize the number of writes which sends their batch before the end of the linger time.
+     * @param scheduler the scheduler ending the linger times.
+     * @param registry the registry of the meters.
+     */
+    public GroupCommit(
+        String name,
+        Function<List<T>, Flux<T>> write,
+        Function<T, Mono<T>> retry,
+        Duration linger,
+        int maxBatchSize,
+        Scheduler scheduler,
+        MeterRegistry registry
+    ) {
+        this.write = write;
+        this.retry = retry;
+        this.batchSizes =
+            DistributionSummary
+                .builder(BATCH_METER_NAME)
+                .tag("write", name)
+                .description("Number of values written by a single database write")
+                .register(registry);
+        this.lingerTimer =
+            Timer.builder(LINGER_METER_NAME).tag("write", name).description("Time a write waited for its batch").register(registry);
+        this.batcher = new Batcher<>(this::dispatch, linger, maxBatchSize, scheduler);
+    }
+
+    /**
+     * Writes the value with the next batch. Cancelling the returned {@link Mono} does not remove the value from its batch.
+     *
+     * @param value the value to write.
+     * @return the value as written.
+     */
+    public Mono<T> submit(T value) {
+        return Mono.defer(() -> {
+            Pending<T> entry = new Pending<>(value, System.nanoTime(), new CompletableFuture<>());
+            batcher.add(entry);
+            return Mono.fromFuture(entry.result(), true);
+        });
+    }
+
+    private Mono<Void> dispatch(List<Pending<T>> batch) {
+        long now = System.nanoTime();
+        batch.forEach(entry -> lingerTimer.record(now - entry.submitted(), TimeUnit.NANOSECONDS));
+        batchSizes.record(batch.size());
+        return write
+            .apply(batch.stream().map(Pending::value).toList())
+            .collectList()
+            .doOnNext(written -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(written.get(i));
+                }
+            })
+            .then()
+            .onErrorResume(e -> {
+                if (batch.size() == 1) {
+                    batch.get(0).result().completeExceptionally(e);
+                    return Mono.empty();
+                }
+                log.warn("Could not write a batch of {} values, retrying them one by one: {}", batch.size(), e.getMessage());
+                return Flux
+                    .fromIterable(batch)
+                    .flatMap(entry ->
+                        retry
+                            .apply(entry.value())
+                            .doOnSuccess(entry.result()::complete)
+                            .doOnError(entry.result()::completeExceptionally)
+                            .onErrorResume(retryError -> Mono.empty())
+                    )
+                    .then();
+            });
+    }
+
+    private record Pending<T>(T value, long submitted, CompletableFuture<T> result) {}
+}
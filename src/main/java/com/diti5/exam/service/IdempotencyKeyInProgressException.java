@@ -0,0 +1,10 @@
+package com.diti5.exam.service;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyInProgressException() {
+        super("A request with this idempotency key is in progress!");
+    }
+}
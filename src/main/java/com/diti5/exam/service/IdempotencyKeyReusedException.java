@@ -0,0 +1,10 @@
+package com.diti5.exam.service;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReusedException() {
+        super("Idempotency key already used for another request!");
+    }
+}
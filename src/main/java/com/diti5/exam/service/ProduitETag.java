@@ -0,0 +1,67 @@
+package com.diti5.exam.service;
+
+import com.diti5.exam.domain.Produit;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Strong entity tags of the produits, hashed from their content and version, for HTTP conditional requests.
+ */
+public final class ProduitETag {
+
+    private static final String ANY = "*";
+
+    private ProduitETag() {}
+
+    /**
+     * @param produit a produit.
+     * @return the quoted entity tag of the produit, which changes whenever one of its fields changes.
+     */
+    public static String of(Produit produit) {
+        StringBuilder content = new StringBuilder();
+        append(content, produit.getId());
+        append(content, produit.getNom());
+        append(content, produit.getDescription());
+        append(content, produit.getPrix() == null ? null : Double.toString(produit.getPrix()));
+        append(content, produit.getVersion() == null ? null : produit.getVersion().toString());
+        return quote(content);
+    }
+
+    /**
+     * @param produits a page of produits.
+     * @param total the total count sent with the page, if any.
+     * @return the quoted entity tag of the page, which changes whenever the produits, their order or the total changes.
+     */
+    public static String of(List<Produit> produits, Long total) {
+        StringBuilder content = new StringBuilder();
+        append(content, total == null ? null : total.toString());
+        produits.forEach(produit -> content.append(of(produit)));
+        return quote(content);
+    }
+
+    /**
+     * Evaluates an {@code If-Match} header with the strong comparison: weak entity tags never match.
+     *
+     * @param ifMatch the value of the {@code If-Match} header: {@code *} or a list of entity tags.
+     * @param produit the current produit.
+     * @return whether the produit matches one of the entity tags.
+     */
+    public static boolean matches(String ifMatch, Produit produit) {
+        if (ANY.equals(ifMatch.trim())) {
+            return true;
+        }
+        String eTag = of(produit);
+        return Arrays.stream(ifMatch.split(",")).map(String::trim).anyMatch(eTag::equals);
+    }
+
+    private static void append(StringBuilder content, String value) {
+        // Length prefixed so that no two different produits give the same content
+        content.append(value == null ? "-" : value.length() + ":" + value).append('|');
+    }
+
+    private static String quote(CharSequence content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
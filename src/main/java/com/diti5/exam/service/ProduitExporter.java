@@ -0,0 +1,156 @@
+package com.diti5.exam.service;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Exports the whole catalog of produits, as CSV or newline delimited JSON, optionally compressed with gzip.
+ * <p>
+ * The produits are read from a single Mongo cursor ordered by id, each one once, under the {@code snapshot} read concern
+ * when enabled with {@code application.produit.export.snapshot}, which requires a replica set and bounds the duration of the
+ * export. Each batch of {@code application.produit.export.batch-size} produits is encoded, compressed and flushed as one chunk
+ * of the response before the next batch is read, so that the memory used does not depend on the size of the catalog.
+ */
+@Service
+public class ProduitExporter {
+
+    private final Logger log = LoggerFactory.getLogger(ProduitExporter.class);
+
+    private static final byte[] LINE_SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ProduitRepository produitRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProduitExporter(ProduitRepository produitRepository, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.produitRepository = produitRepository;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Exports every produit. A CSV export starts with a header naming the {@link ProduitFeedFormat#CSV_COLUMNS}, and can be
+     * imported back with {@link ProduitImporter}.
+     *
+     * @param format the format of the export.
+     * @param gzip whether to compress the export.
+     * @return the chunks of the export, one per batch of produits.
+     */
+    public Flux<DataBuffer> export(ProduitFeedFormat format, boolean gzip) {
+        log.debug("Request to export all Produits as {}, gzip : {}", format, gzip);
+        ApplicationProperties.Produit.Export export = applicationProperties.getProduit().getExport();
+        return Flux.using(
+            () -> new Encoder(format, gzip),
+            encoder ->
+                produitRepository
+                    .streamAll(export.getBatchSize(), export.isSnapshot())
+                    .buffer(export.getBatchSize())
+                    .map(encoder::encode)
+                    .concatWith(Mono.fromCallable(encoder::finish))
+                    .filter(bytes -> bytes.length > 0)
+                    .map(DefaultDataBufferFactory.sharedInstance::wrap),
+            Encoder::close
+        );
+    }
+
+    /**
+     * Escapes a CSV value as of RFC 4180, quoting it only when needed. Quoted line breaks are read back by
+     * {@link ProduitImporter}, a {@code \r\n} as a {@code \n}.
+     */
+    static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Encodes the produits of one export, keeping the state of the compression between the batches.
+     */
+    private class Encoder {
+
+        private final ProduitFeedFormat format;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private final OutputStream output;
+
+        Encoder(ProduitFeedFormat format, boolean gzip) throws IOException {
+            this.format = format;
+            // Sync flushes let each batch be decompressed as soon as it is received
+            this.output = gzip ? new GZIPOutputStream(buffer, true) : buffer;
+            if (format == ProduitFeedFormat.CSV) {
+                output.write(String.join(",", ProduitFeedFormat.CSV_COLUMNS).getBytes(StandardCharsets.UTF_8));
+                output.write(LINE_SEPARATOR);
+            }
+        }
+
+        byte[] encode(List<Produit> produits) {
+            try {
+                for (Produit produit : produits) {
+                    output.write(format == ProduitFeedFormat.CSV ? toCsv(produit) : objectMapper.writeValueAsBytes(produit));
+                    output.write(LINE_SEPARATOR);
+                }
+                output.flush();
+                return drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte[] finish() throws IOException {
+            if (output instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            return drain();
+        }
+
+        private byte[] drain() {
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+
+        private byte[] toCsv(Produit produit) {
+            return String
+                .join(
+                    ",",
+                    escapeCsv(produit.getId()),
+                    escapeCsv(produit.getNom()),
+                    escapeCsv(produit.getDescription()),
+                    produit.getPrix() == null ? "" : produit.getPrix().toString(),
+                    produit.getVersion() == null ? "" : produit.getVersion().toString()
+                )
+                .getBytes(StandardCharsets.UTF_8);
+        }
+
+        void close() {
+            try {
+                output.close();
+            } catch (IOException e) {
+                log.warn("Could not release the compressor of an export", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.diti5.exam.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The formats of the produit feeds, read by {@link ProduitImporter} and written by {@link ProduitExporter}.
+ */
+public enum ProduitFeedFormat {
+    CSV("csv", "text/csv"),
+    JSON_LINES("jsonl", "application/x-ndjson");
+
+    /**
+     * The columns of a CSV feed: an exported feed has them all, in this order, an imported one any of them in any order.
+     */
+    public static final List<String> CSV_COLUMNS = List.of("id", "nom", "description", "prix", "version");
+
+    private final String name;
+
+    private final String contentType;
+
+    ProduitFeedFormat(String name, String contentType) {
+        this.name = name;
+        this.contentType = contentType;
+    }
+
+    /**
+     * @param name the name of a format, as given in requests.
+     * @return the format with this name, if any.
+     */
+    public static Optional<ProduitFeedFormat> fromName(String name) {
+        return Arrays.stream(values()).filter(format -> format.name.equals(name)).findFirst();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,215 @@
+package com.diti5.exam.service;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.ProduitIdempotencyKey;
+import com.diti5.exam.repository.ProduitIdempotencyKeyRepository;
+import com.diti5.exam.security.SecurityUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Makes the creation of a produit idempotent for a client supplied {@code Idempotency-Key}: the first request with a key
+ * creates the produit, the same request sent again with the key gets the produit created the first time, without another write.
+ * <p>
+ * Keys are claimed by inserting them in a Mongo collection, so that a key is claimed once across instances. A claim expires
+ * after {@code application.produit.idempotency.in-progress-timeout}, then is taken over by a retry, unless the creation
+ * completes before and extends it to {@code application.produit.idempotency.time-to-live}. The keys of completed creations
+ * are also kept in a local cache, so that replays do not query Mongo. Keys are scoped by user, and bound to a hash of the
+ * request which used them first.
+ */
+@Service
+public class ProduitIdempotency {
+
+    private final Logger log = LoggerFactory.getLogger(ProduitIdempotency.class);
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private final ProduitIdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final Cache<String, ProduitIdempotencyKey> idempotencyCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeToLive;
+
+    private final Duration inProgressTimeout;
+
+    private final Clock clock;
+
+    public ProduitIdempotency(
+        ProduitIdempotencyKeyRepository idempotencyKeyRepository,
+        Cache<String, ProduitIdempotencyKey> produitIdempotencyCache,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this(idempotencyKeyRepository, produitIdempotencyCache, objectMapper, applicationProperties, Clock.systemUTC());
+    }
+
+    ProduitIdempotency(
+        ProduitIdempotencyKeyRepository idempotencyKeyRepository,
+        Cache<String, ProduitIdempotencyKey> produitIdempotencyCache,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        Clock clock
+    ) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencyCache = produitIdempotencyCache;
+        this.objectMapper = objectMapper;
+        this.timeToLive = applicationProperties.getProduit().getIdempotency().getTimeToLive();
+        this.inProgressTimeout = applicationProperties.getProduit().getIdempotency().getInProgressTimeout();
+        this.clock = clock;
+    }
+
+    /**
+     * The expiry of the local cache entries, which expire with their key rather than a full time to live after being cached,
+     * whether they were cached on creation or reloaded from Mongo.
+     *
+     * @param clock the clock the expiration dates of the keys are compared to.
+     * @return the expiry of the {@code produitIdempotencyCache}.
+     */
+    public static Expiry<String, ProduitIdempotencyKey> cacheExpiry(Clock clock) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String id, ProduitIdempotencyKey key, long currentTime) {
+                if (key.getExpiresAt() == null) {
+                    return 0;
+                }
+                return Math.max(0, Duration.between(clock.instant(), key.getExpiresAt()).toNanos());
+            }
+
+            @Override
+            public long expireAfterUpdate(String id, ProduitIdempotencyKey key, long currentTime, long currentDuration) {
+                return expireAfterCreate(id, key, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String id, ProduitIdempotencyKey key, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Creates the produit, unless the key was already used for the same request.
+     *
+     * @param key the {@code Idempotency-Key} sent by the client.
+     * @param produit the produit to create, as received.
+     * @param create creates the produit, called only when the key was not used yet.
+     * @return the produit created for the key, replayed or not.
+     * @throws IdempotencyKeyReusedException if the key was used for another request.
+     * @throws IdempotencyKeyInProgressException if a request with the key is still creating its produit.
+     */
+    public Mono<Outcome> create(String key, Produit produit, Supplier<Mono<Produit>> create) {
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .defaultIfEmpty(ANONYMOUS)
+            .flatMap(login -> {
+                String id = login + ":" + key;
+                String requestHash = hash(produit);
+                ProduitIdempotencyKey cached = idempotencyCache.getIfPresent(id);
+                if (cached != null) {
+                    return Mono.fromCallable(() -> replay(cached, requestHash));
+                }
+                return claim(id, requestHash, create);
+            });
+    }
+
+    private Mono<Outcome> claim(String id, String requestHash, Supplier<Mono<Produit>> create) {
+        ProduitIdempotencyKey claim = new ProduitIdempotencyKey()
+            .id(id)
+            .requestHash(requestHash)
+            .expiresAt(clock.instant().plus(inProgressTimeout));
+        return idempotencyKeyRepository
+            .insert(claim)
+            .map(Optional::of)
+            .onErrorResume(DuplicateKeyException.class, e -> Mono.just(Optional.empty()))
+            .flatMap(claimed -> claimed.isPresent() ? createClaimed(claimed.orElseThrow(), create) : replayStored(id, requestHash, create));
+    }
+
+    private Mono<Outcome> createClaimed(ProduitIdempotencyKey claimed, Supplier<Mono<Produit>> create) {
+        return create
+            .get()
+            .onErrorResume(e ->
+                // Releases the key, so that the client can retry the failed request
+                idempotencyKeyRepository
+                    .deleteById(claimed.getId())
+                    .onErrorResume(deleteError -> {
+                        log.warn("Could not release the idempotency key {}: {}", claimed.getId(), deleteError.getMessage());
+                        return Mono.empty();
+                    })
+                    .then(Mono.error(e))
+            )
+            .flatMap(created ->
+                idempotencyKeyRepository
+                    .save(claimed.produit(created).expiresAt(clock.instant().plus(timeToLive)))
+                    .doOnNext(completed -> idempotencyCache.put(completed.getId(), completed))
+                    .onErrorResume(e -> {
+                        // The produit is created, the key stays in progress until its claim expires
+                        log.warn("Could not record the produit created for the idempotency key {}: {}", claimed.getId(), e.getMessage());
+                        return Mono.empty();
+                    })
+                    .thenReturn(new Outcome(created, false))
+            );
+    }
+
+    private Mono<Outcome> replayStored(String id, String requestHash, Supplier<Mono<Produit>> create) {
+        return idempotencyKeyRepository
+            .findById(id)
+            .flatMap(stored -> {
+                if (stored.getExpiresAt() != null && stored.getExpiresAt().isBefore(clock.instant())) {
+                    // Expired, or claimed by a creation which did not complete in time, but not removed by the TTL index yet
+                    return idempotencyKeyRepository.delete(stored).then(claim(id, requestHash, create));
+                }
+                if (stored.getProduit() != null) {
+                    idempotencyCache.put(id, stored);
+                }
+                return Mono.fromCallable(() -> replay(stored, requestHash));
+            })
+            // Released by a failed creation in the meantime
+            .switchIfEmpty(Mono.defer(() -> claim(id, requestHash, create)));
+    }
+
+    private Outcome replay(ProduitIdempotencyKey stored, String requestHash) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        if (stored.getProduit() == null) {
+            throw new IdempotencyKeyInProgressException();
+        }
+        return new Outcome(stored.getProduit(), true);
+    }
+
+    /**
+     * @param produit the produit to create, as received.
+     * @return the hash binding a key to the request which used it first.
+     */
+    String hash(Produit produit) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(produit)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash the produit", e);
+        }
+    }
+
+    /**
+     * @param produit the produit created for the key.
+     * @param replayed whether the produit was created by an earlier request with the key.
+     */
+    public record Outcome(Produit produit, boolean replayed) {}
+}
@@ -0,0 +1,262 @@
+package com.diti5.exam.service;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.service.dto.ProduitImportProgressDTO;
+import com.diti5.exam.service.dto.ProduitImportProgressDTO.RowError;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Imports feeds of produits, as CSV or newline delimited JSON, one record at a time.
+ * <p>
+ * The lines are parsed as they are received and written in batches of {@code application.produit.bulk.batch-size} with
+ * {@link ProduitService#saveAll}, which requests the next lines only once a batch is written: the memory used does not depend
+ * on the size of the feed. Invalid rows are reported and skipped, the other rows are still imported.
+ */
+@Service
+public class ProduitImporter {
+
+    private final Logger log = LoggerFactory.getLogger(ProduitImporter.class);
+
+    private static final char QUOTE = '"';
+
+    private static final char SEPARATOR = ',';
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final ProduitService produitService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProduitImporter(ProduitService produitService, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.produitService = produitService;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Imports a feed of produits: produits without id are created, the others replace (or create) the produit with the same id.
+     * <p>
+     * A CSV feed starts with a header naming its columns, among {@link ProduitFeedFormat#CSV_COLUMNS}, in any order. Quoted
+     * values may contain separators, doubled quotes and line breaks, read as {@code \n}: the rows spanning many lines are
+     * numbered after their first line. As in JSON lines, the version of the feed is ignored.
+     *
+     * @param lines the lines of the feed, without their line terminators.
+     * @param format the format of the feed.
+     * @return the progress after each batch, the last one covering the whole feed; an {@link IllegalArgumentException} if the
+     * header of a CSV feed is not valid.
+     */
+    public Flux<ProduitImportProgressDTO> importFeed(Flux<String> lines, ProduitFeedFormat format) {
+        log.debug("Request to import a feed of Produits as {}", format);
+        AtomicReference<List<String>> header = new AtomicReference<>(format == ProduitFeedFormat.CSV ? null : List.of());
+        Progress progress = new Progress();
+        Flux<Line> records = lines.index((index, line) -> new Line(index + 1, line));
+        return (format == ProduitFeedFormat.CSV ? joinQuotedLineBreaks(records) : records)
+            .filter(line -> !line.text().isBlank())
+            .<Row>handle((line, sink) -> {
+                if (header.get() == null) {
+                    header.set(parseHeader(line.text()));
+                } else if (format == ProduitFeedFormat.CSV) {
+                    sink.next(parseCsvRow(line, header.get()));
+                } else {
+                    sink.next(parseJsonRow(line));
+                }
+            })
+            .buffer(applicationProperties.getProduit().getBulk().getBatchSize())
+            .concatMap(batch -> write(batch, progress));
+    }
+
+    /**
+     * Joins the lines of the CSV records whose quoted values contain line breaks. A quoted value still open at the end of the
+     * feed is passed on as is, to be reported as invalid.
+     */
+    private static Flux<Line> joinQuotedLineBreaks(Flux<Line> lines) {
+        AtomicReference<Line> open = new AtomicReference<>();
+        return lines
+            .<Line>handle((line, sink) -> {
+                Line record = open.get() == null ? line : new Line(open.get().number(), open.get().text() + '\n' + line.text());
+                if (scanCsv(record.text(), new ArrayList<>())) {
+                    open.set(null);
+                    sink.next(record);
+                } else {
+                    open.set(record);
+                }
+            })
+            .concatWith(Mono.fromSupplier(open::get));
+    }
+
+    private Mono<ProduitImportProgressDTO> write(List<Row> batch, Progress progress) {
+        List<RowError> errors = new ArrayList<>();
+        List<Row> valid = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            if (row.error() == null) {
+                valid.add(row);
+            } else {
+                errors.add(new RowError(row.number(), null, row.error()));
+            }
+        }
+        progress.rows.addAndGet(batch.size());
+        progress.failed.addAndGet(errors.size());
+        if (valid.isEmpty()) {
+            return Mono.just(progress.toDTO(errors));
+        }
+        return produitService
+            // Never ordered: one invalid row of a feed must not prevent the next ones from being imported
+            .saveAll(Flux.fromIterable(valid).map(Row::produit), false)
+            .doOnNext(result -> {
+                switch (result.getStatus()) {
+                    case CREATED -> progress.created.incrementAndGet();
+                    case UPDATED -> progress.updated.incrementAndGet();
+                    case FAILED -> {
+                        progress.failed.incrementAndGet();
+                        errors.add(new RowError(valid.get((int) result.getIndex()).number(), result.getId(), result.getError()));
+                    }
+                }
+            })
+            .then(Mono.fromSupplier(() -> progress.toDTO(errors)));
+    }
+
+    private static List<String> parseHeader(String line) {
+        List<String> columns = new ArrayList<>();
+        String text = line.charAt(0) == BYTE_ORDER_MARK ? line.substring(1) : line;
+        for (String column : splitCsv(text)) {
+            String name = column.trim().toLowerCase(Locale.ROOT);
+            if (!ProduitFeedFormat.CSV_COLUMNS.contains(name) || columns.contains(name)) {
+                throw new IllegalArgumentException(
+                    "Invalid column '" + column + "', the columns must be among " + ProduitFeedFormat.CSV_COLUMNS
+                );
+            }
+            columns.add(name);
+        }
+        return columns;
+    }
+
+    private static Row parseCsvRow(Line line, List<String> header) {
+        try {
+            List<String> values = splitCsv(line.text());
+            if (values.size() != header.size()) {
+                return Row.invalid(line, "Expected " + header.size() + " values but found " + values.size());
+            }
+            Produit produit = new Produit();
+            for (int i = 0; i < header.size(); i++) {
+                String value = values.get(i).isEmpty() ? null : values.get(i);
+                switch (header.get(i)) {
+                    case "id" -> produit.setId(value);
+                    case "nom" -> produit.setNom(value);
+                    case "description" -> produit.setDescription(value);
+                    case "prix" -> produit.setPrix(value == null ? null : parsePrix(value.trim()));
+                    default -> {
+                        // The version of an imported produit is the one in the database, not the one of the feed
+                    }
+                }
+            }
+            return new Row(line.number(), produit, null);
+        } catch (IllegalArgumentException e) {
+            return Row.invalid(line, e.getMessage());
+        }
+    }
+
+    private Row parseJsonRow(Line line) {
+        try {
+            Produit produit = objectMapper.readValue(line.text(), Produit.class);
+            if (produit.getPrix() != null && !Double.isFinite(produit.getPrix())) {
+                return Row.invalid(line, "Invalid prix '" + produit.getPrix() + "'");
+            }
+            // The version of an imported produit is the one in the database, not the one of the feed
+            return new Row(line.number(), produit.version(null), null);
+        } catch (JsonProcessingException e) {
+            return Row.invalid(line, e.getOriginalMessage());
+        }
+    }
+
+    private static double parsePrix(String value) {
+        try {
+            double prix = Double.parseDouble(value);
+            if (Double.isFinite(prix)) {
+                return prix;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid prix '" + value + "'");
+    }
+
+    /**
+     * Splits a CSV line as of RFC 4180: values may be quoted, a quote within a quoted value is doubled.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        if (!scanCsv(line, values)) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        return values;
+    }
+
+    /**
+     * Adds the values of a CSV line to a list.
+     *
+     * @return whether the last value is complete, {@code false} if it is a quoted value not terminated on this line.
+     */
+    private static boolean scanCsv(String line, List<String> values) {
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != QUOTE) {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                    value.append(QUOTE);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == SEPARATOR) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == QUOTE && value.isEmpty()) {
+                quoted = true;
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return !quoted;
+    }
+
+    private record Line(long number, String text) {}
+
+    private record Row(long number, Produit produit, String error) {
+        static Row invalid(Line line, String error) {
+            return new Row(line.number(), null, error);
+        }
+    }
+
+    /**
+     * The counters of an import, updated by one batch at a time.
+     */
+    private static class Progress {
+
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        ProduitImportProgressDTO toDTO(List<RowError> errors) {
+            return new ProduitImportProgressDTO(rows.get(), created.get(), updated.get(), failed.get(), errors);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.diti5.exam.service;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import com.diti5.exam.repository.ProduitRepository;
+import com.diti5.exam.service.dto.ProduitPriceStatsDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory statistics of the prices of the produits, serving {@code GET /api/produits/stats} without scanning Mongo.
+ * <p>
+ * The statistics are loaded when the application is ready, then kept up to date by
+ * {@link com.diti5.exam.service.impl.ProduitServiceImpl} on every write. Percentiles are estimated from a sketch of
+ * logarithmic buckets, so that reading them does not depend on the number of produits. Every
+ * {@code application.produit.stats.reconciliation-interval}, the statistics are checked against a Mongo aggregation and
+ * rebuilt if they drifted, for instance after writes made by another instance or directly in the database.
+ */
+@Service
+public class ProduitPriceStatistics {
+
+    public static final String DRIFT_METER_NAME = "produit.stats.drift";
+
+    private final Logger log = LoggerFactory.getLogger(ProduitPriceStatistics.class);
+
+    private static final List<Double> PERCENTILES = List.of(0.5, 0.9, 0.95, 0.99);
+
+    /**
+     * Relative accuracy of the percentiles: each price is counted in a bucket whose bounds are within 1% of its center.
+     */
+    private static final double ACCURACY = 0.01;
+    private static final double GAMMA = (1 + ACCURACY) / (1 - ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    /**
+     * Prices below this one, including zero and negative prices, share the first bucket of the sketch.
+     */
+    private static final double MIN_SKETCHED = 0.01;
+
+    /**
+     * Relative difference tolerated between the sum of the prices and the one of Mongo, which adds up doubles.
+     */
+    private static final double SUM_TOLERANCE = 1e-9;
+
+    private final ProduitRepository produitRepository;
+
+    private final double[] bounds;
+
+    private final Counter driftCounter;
+
+    private final RebuildableState<Aggregate> aggregate;
+
+    public ProduitPriceStatistics(
+        ProduitRepository produitRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.produitRepository = produitRepository;
+        this.bounds =
+            applicationProperties.getProduit().getStats().getBuckets().stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        this.aggregate = new RebuildableState<>(new Aggregate(bounds));
+        this.driftCounter =
+            Counter
+                .builder(DRIFT_METER_NAME)
+                .description("Number of reconciliations which found the produit price statistics out of date")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild().subscribe(null, e -> log.error("Could not load the produit price statistics", e));
+    }
+
+    @Scheduled(
+        initialDelayString = "${application.produit.stats.reconciliation-interval:PT1H}",
+        fixedDelayString = "${application.produit.stats.reconciliation-interval:PT1H}"
+    )
+    public void scheduleReconciliation() {
+        reconcile().subscribe(null, e -> log.error("Could not reconcile the produit price statistics", e));
+    }
+
+    /**
+     * Reloads the prices of all the produits, read with a projection. Reads keep using the previous statistics until the new
+     * ones are complete.
+     *
+     * @return the number of produits having a price.
+     */
+    public Mono<Long> rebuild() {
+        return aggregate
+            .rebuild(
+                Mono.defer(() ->
+                    produitRepository
+                        .findByCriteria(new ProduitCriteria(), Pageable.unpaged(), List.of("prix"))
+                        .reduce(new Aggregate(bounds), (rebuilt, produit) -> {
+                            rebuilt.put(produit.getId(), produit.getPrix());
+                            return rebuilt;
+                        })
+                )
+            )
+            .map(rebuilt -> {
+                log.info("Loaded the prices of {} produits in the price statistics", rebuilt.prices.size());
+                return (long) rebuilt.prices.size();
+            });
+    }
+
+    /**
+     * Compares the count, sum, minimum and maximum of the prices with a Mongo aggregation, and rebuilds the statistics when they
+     * differ. A write made while comparing may trigger a needless rebuild.
+     *
+     * @return whether the statistics were up to date.
+     */
+    public Mono<Boolean> reconcile() {
+        return produitRepository
+            .summarizePrix()
+            .flatMap(expected -> {
+                DoubleSummaryStatistics actual = aggregate.read(Aggregate::summary);
+                if (matches(actual, expected)) {
+                    return Mono.just(true);
+                }
+                log.warn("The produit price statistics drifted from the database: {} instead of {}, rebuilding them", actual, expected);
+                driftCounter.increment();
+                return rebuild().thenReturn(false);
+            });
+    }
+
+    private static boolean matches(DoubleSummaryStatistics actual, DoubleSummaryStatistics expected) {
+        if (actual.getCount() != expected.getCount()) {
+            return false;
+        }
+        return (
+            actual.getCount() == 0 ||
+            (
+                actual.getMin() == expected.getMin() &&
+                actual.getMax() == expected.getMax() &&
+                Math.abs(actual.getSum() - expected.getSum()) <= SUM_TOLERANCE * Math.max(1, Math.abs(expected.getSum()))
+            )
+        );
+    }
+
+    /**
+     * Counts the price of a produit, replacing its previous price if any.
+     *
+     * @param produit the produit, as persisted.
+     */
+    public void put(Produit produit) {
+        String id = produit.getId();
+        Double prix = produit.getPrix();
+        aggregate.write(current -> current.put(id, prix));
+    }
+
+    /**
+     * Stops counting the price of a produit.
+     *
+     * @param id the id of the produit.
+     */
+    public void remove(String id) {
+        aggregate.write(current -> current.remove(id));
+    }
+
+    /**
+     * @return the current statistics, computed in a time which depends on the spread of the prices, not on their number.
+     */
+    public ProduitPriceStatsDTO get() {
+        return aggregate.read(Aggregate::toDTO);
+    }
+
+    static int sketchIndex(double prix) {
+        return prix < MIN_SKETCHED ? Integer.MIN_VALUE : (int) Math.ceil(Math.log(prix) / LOG_GAMMA);
+    }
+
+    /**
+     * @return the price at the center of a bucket of the sketch, in relative terms.
+     */
+    static double sketchValue(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     * The prices of the produits and their statistics, modified under the lock of the enclosing {@link RebuildableState}.
+     */
+    private static class Aggregate {
+
+        private final double[] bounds;
+
+        private final Map<String, Double> prices = new HashMap<>();
+
+        /**
+         * Number of produits by price, for the minimum and maximum.
+         */
+        private final TreeMap<Double, Integer> values = new TreeMap<>();
+
+        /**
+         * Number of produits by bucket of the sketch, for the percentiles.
+         */
+        private final TreeMap<Integer, Long> sketch = new TreeMap<>();
+
+        private final long[] histogram;
+
+        /**
+         * Exact sum of the prices, so that it does not drift as prices are added and removed.
+         */
+        private BigDecimal sum = BigDecimal.ZERO;
+
+        Aggregate(double[] bounds) {
+            this.bounds = bounds;
+            this.histogram = new long[bounds.length + 1];
+        }
+
+        void put(String id, Double prix) {
+            remove(id);
+            if (prix == null || !Double.isFinite(prix)) {
+                return;
+            }
+            prices.put(id, prix);
+            values.merge(prix, 1, Integer::sum);
+            sketch.merge(sketchIndex(prix), 1L, Long::sum);
+            histogram[histogramIndex(prix)]++;
+            sum = sum.add(new BigDecimal(prix));
+        }
+
+        void remove(String id) {
+            Double prix = prices.remove(id);
+            if (prix == null) {
+                return;
+            }
+            values.computeIfPresent(prix, (value, count) -> count == 1 ? null : count - 1);
+            sketch.computeIfPresent(sketchIndex(prix), (index, count) -> count == 1 ? null : count - 1);
+            histogram[histogramIndex(prix)]--;
+            sum = sum.subtract(new BigDecimal(prix));
+        }
+
+        private int histogramIndex(double prix) {
+            int index = 0;
+            while (index < bounds.length && prix >= bounds[index]) {
+                index++;
+            }
+            return index;
+        }
+
+        DoubleSummaryStatistics summary() {
+            if (prices.isEmpty()) {
+                return new DoubleSummaryStatistics();
+            }
+            return new DoubleSummaryStatistics(prices.size(), values.firstKey(), values.lastKey(), sum.doubleValue());
+        }
+
+        ProduitPriceStatsDTO toDTO() {
+            List<ProduitPriceStatsDTO.Bucket> buckets = new ArrayList<>(histogram.length);
+            for (int i = 0; i < histogram.length; i++) {
+                buckets.add(
+                    new ProduitPriceStatsDTO.Bucket(i == 0 ? null : bounds[i - 1], i == bounds.length ? null : bounds[i], histogram[i])
+                );
+            }
+            long count = prices.size();
+            if (count == 0) {
+                return new ProduitPriceStatsDTO(0, null, null, null, Map.of(), buckets);
+            }
+            double min = values.firstKey();
+            double max = values.lastKey();
+            return new ProduitPriceStatsDTO(
+                count,
+                min,
+                max,
+                sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64).doubleValue(),
+                percentiles(count, min, max),
+                buckets
+            );
+        }
+
+        private Map<String, Double> percentiles(long count, double min, double max) {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            int next = 0;
+            long seen = 0;
+            for (Map.Entry<Integer, Long> bucket : sketch.entrySet()) {
+                seen += bucket.getValue();
+                // The percentile p is the price of the produit of rank ceil(p * count), the first bucket reaching it holds it
+                while (next < PERCENTILES.size() && seen >= Math.ceil(PERCENTILES.get(next) * count)) {
+                    double value = bucket.getKey() == Integer.MIN_VALUE ? min : sketchValue(bucket.getKey());
+                    percentiles.put(name(PERCENTILES.get(next)), Math.max(min, Math.min(max, value)));
+                    next++;
+                }
+            }
+            return percentiles;
+        }
+
+        private static String name(double percentile) {
+            return "p" + BigDecimal.valueOf(percentile * 100).stripTrailingZeros().toPlainString().replace(".", "_");
+        }
+    }
+}
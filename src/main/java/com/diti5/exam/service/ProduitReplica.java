@@ -0,0 +1,343 @@
+package com.diti5.exam.service;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * In-memory replica of the produits, serving {@code findOne} and the unfiltered listings without querying Mongo when
+ * {@code application.produit.replica.enabled} is on.
+ * <p>
+ * The replica is loaded when the application is ready, then kept current by a change stream opened slightly before the load,
+ * so that no write falls between the two. The produits are kept sorted by id, nom and prix, the properties the listings can be
+ * sorted on. The lag of the replica behind the database is exposed by the {@value #LAG_METER_NAME} meter: it is the delay
+ * between the last change and its reception, or the time since the last event was received, or since the change stream failed.
+ * As a change stream can hang without failing, the replica writes a heartbeat every third of
+ * {@code application.produit.replica.max-lag}, which the change stream receives even when no produit changes. Reads fall back to
+ * Mongo while the lag exceeds {@code application.produit.replica.max-lag}, or until the replica is loaded.
+ */
+@Service
+public class ProduitReplica {
+
+    public static final String LAG_METER_NAME = "produit.replica.lag";
+    public static final String SIZE_METER_NAME = "produit.replica.size";
+
+    private final Logger log = LoggerFactory.getLogger(ProduitReplica.class);
+
+    /**
+     * How far back the change stream starts before the load, to make up for the clock of the application being ahead of Mongo.
+     */
+    private static final Duration CLOCK_MARGIN = Duration.ofSeconds(5);
+
+    private static final Comparator<Produit> BY_ID = Comparator.comparing(Produit::getId);
+
+    private static final Map<String, Comparator<Produit>> ORDERS = Map.of(
+        "id",
+        BY_ID,
+        "nom",
+        Comparator.comparing(Produit::getNom, Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(BY_ID),
+        "prix",
+        Comparator.comparing(Produit::getPrix, Comparator.nullsFirst(Comparator.<Double>naturalOrder())).thenComparing(BY_ID)
+    );
+
+    private final ProduitRepository produitRepository;
+
+    private final boolean enabled;
+
+    private final Duration maxLag;
+
+    private final Duration heartbeatInterval;
+
+    private final Clock clock;
+
+    /**
+     * The produits, {@code null} until loaded.
+     */
+    private final RebuildableState<Replica> replica = new RebuildableState<>(null);
+
+    /**
+     * The delay of the last change received, while the change stream runs.
+     */
+    private volatile Duration changeLag = Duration.ZERO;
+
+    /**
+     * When the last change or heartbeat was received, while the change stream runs.
+     */
+    private volatile Instant lastEventAt;
+
+    /**
+     * When the change stream stopped, or {@code null} while it runs.
+     */
+    private volatile Instant failedAt;
+
+    private Disposable sync;
+
+    public ProduitReplica(ProduitRepository produitRepository, ApplicationProperties applicationProperties, MeterRegistry registry) {
+        this(produitRepository, applicationProperties, registry, Clock.systemUTC());
+    }
+
+    ProduitReplica(ProduitRepository produitRepository, ApplicationProperties applicationProperties, MeterRegistry registry, Clock clock) {
+        this.produitRepository = produitRepository;
+        this.enabled = applicationProperties.getProduit().getReplica().isEnabled();
+        this.maxLag = applicationProperties.getProduit().getReplica().getMaxLag();
+        this.heartbeatInterval = maxLag.dividedBy(3);
+        this.clock = clock;
+        this.failedAt = clock.instant();
+        if (enabled) {
+            Gauge
+                .builder(LAG_METER_NAME, this, produitReplica -> produitReplica.lag().toMillis() / 1000.0)
+                .description("Delay of the in-memory produit replica behind the database")
+                .baseUnit("seconds")
+                .register(registry);
+            Gauge
+                .builder(
+                    SIZE_METER_NAME,
+                    this,
+                    produitReplica -> produitReplica.replica.get() != null ? produitReplica.replica.get().byId.size() : 0
+                )
+                .description("Number of produits in the in-memory replica")
+                .register(registry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Loads the replica then follows the change stream, reloading the replica whenever the change stream fails.
+     */
+    synchronized void start() {
+        if (sync != null) {
+            return;
+        }
+        sync =
+            Flux
+                .defer(this::load)
+                .doOnError(e -> {
+                    log.warn("The produit replica stopped following the database, reloading it: {}", e.getMessage());
+                    if (failedAt == null) {
+                        failedAt = clock.instant();
+                    }
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .subscribe();
+    }
+
+    synchronized void stop() {
+        if (sync != null) {
+            sync.dispose();
+            sync = null;
+        }
+    }
+
+    private Flux<Void> load() {
+        Instant startAt = clock.instant().minus(CLOCK_MARGIN);
+        Flux<Void> changes = produitRepository.watch(startAt).doOnNext(this::apply).thenMany(Flux.empty());
+        // A heartbeat that fails or hangs is not retried: the change stream falls silent and the lag grows
+        Flux<Void> heartbeats = Flux
+            .interval(heartbeatInterval, heartbeatInterval)
+            .onBackpressureDrop()
+            .concatMap(tick ->
+                produitRepository
+                    .heartbeat()
+                    .onErrorResume(e -> {
+                        log.debug("Could not write the heartbeat of the produit replica: {}", e.getMessage());
+                        return Mono.empty();
+                    })
+            );
+        Mono<Void> loading = replica
+            .rebuild(
+                produitRepository
+                    .findAll()
+                    .reduce(new Replica(), (loaded, produit) -> {
+                        loaded.put(produit);
+                        return loaded;
+                    })
+            )
+            .doOnNext(loaded -> {
+                changeLag = Duration.ZERO;
+                lastEventAt = clock.instant();
+                failedAt = null;
+                log.info("Loaded {} produits in the produit replica", loaded.byId.size());
+            })
+            .then();
+        // The load is subscribed first, so that the changes received while it reads the collection are journaled
+        return Flux.merge(loading, changes, heartbeats);
+    }
+
+    private void apply(ChangeStreamEvent<Produit> event) {
+        Instant now = clock.instant();
+        Instant timestamp = event.getTimestamp();
+        if (timestamp != null) {
+            changeLag = Duration.between(timestamp, now);
+        }
+        lastEventAt = now;
+        if (ProduitRepository.REPLICA_HEARTBEAT_COLLECTION.equals(event.getCollectionName())) {
+            return;
+        }
+        Produit produit = event.getBody();
+        if (produit != null) {
+            replica.write(current -> current.put(produit));
+        } else {
+            // A deletion, or an update of a produit deleted since
+            BsonValue id = event.getRaw().getDocumentKey().get("_id");
+            String key = id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+            replica.write(current -> current.remove(key));
+        }
+    }
+
+    /**
+     * Applies a produit just written by this instance, without waiting for the change stream.
+     *
+     * @param produit the produit, as persisted.
+     */
+    public void put(Produit produit) {
+        replica.write(current -> current.put(produit));
+    }
+
+    /**
+     * Removes a produit just deleted by this instance, without waiting for the change stream.
+     *
+     * @param id the id of the produit.
+     */
+    public void remove(String id) {
+        replica.write(current -> current.remove(id));
+    }
+
+    /**
+     * @return the delay of the replica behind the database, at most what it can be sure of.
+     */
+    public Duration lag() {
+        Instant now = clock.instant();
+        Instant failed = failedAt;
+        if (failed != null) {
+            return Duration.between(failed, now);
+        }
+        Duration silence = lastEventAt != null ? Duration.between(lastEventAt, now) : Duration.ZERO;
+        Duration delay = changeLag;
+        return silence.compareTo(delay) > 0 ? silence : delay;
+    }
+
+    /**
+     * @return whether reads can be served by the replica, which is loaded and close enough to the database.
+     */
+    public boolean isServing() {
+        return replica.get() != null && lag().compareTo(maxLag) <= 0;
+    }
+
+    /**
+     * @param id the id of the produit.
+     * @return the produit, or an empty {@link Mono} when there is none or when the replica is not loaded.
+     */
+    public Mono<Produit> findOne(String id) {
+        Replica current = replica.get();
+        return current != null ? Mono.justOrEmpty(current.byId.get(id)) : Mono.empty();
+    }
+
+    /**
+     * @param pageable the page to read, unsorted or sorted on a single property among {@code id}, {@code nom} and {@code prix},
+     * optionally followed by the id in the same direction.
+     * @return whether {@link #findAll(Pageable)} can read the page.
+     */
+    public boolean canRead(Pageable pageable) {
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (!isServing()) {
+            return false;
+        }
+        if (orders.isEmpty()) {
+            return true;
+        }
+        // The produits are sorted on the property then on the id, both reversed by a descending order, so an order on the id in
+        // the same direction may follow
+        Sort.Order first = orders.get(0);
+        return (
+            ORDERS.containsKey(first.getProperty()) &&
+            orders
+                .stream()
+                .skip(1)
+                .allMatch(order -> order.getProperty().equals("id") && order.getDirection() == first.getDirection())
+        );
+    }
+
+    /**
+     * @param pageable the page to read, see {@link #canRead(Pageable)}.
+     * @return the produits of the page, sorted as the database would.
+     */
+    public Flux<Produit> findAll(Pageable pageable) {
+        Replica current = replica.get();
+        if (current == null) {
+            return Flux.empty();
+        }
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        NavigableSet<Produit> sorted = current.sorted.get(order.getProperty());
+        Iterable<Produit> produits = order.isAscending() ? sorted : sorted.descendingSet();
+        Flux<Produit> page = Flux.fromIterable(produits);
+        return pageable.isPaged() ? page.skip(pageable.getOffset()).take(pageable.getPageSize()) : page;
+    }
+
+    /**
+     * The produits, sorted on each property the listings can be sorted on; modified under the lock of the enclosing
+     * {@link RebuildableState}.
+     */
+    private static class Replica {
+
+        private final ConcurrentSkipListMap<String, Produit> byId = new ConcurrentSkipListMap<>();
+
+        private final Map<String, NavigableSet<Produit>> sorted = Map.of(
+            "id",
+            new ConcurrentSkipListSet<>(ORDERS.get("id")),
+            "nom",
+            new ConcurrentSkipListSet<>(ORDERS.get("nom")),
+            "prix",
+            new ConcurrentSkipListSet<>(ORDERS.get("prix"))
+        );
+
+        void put(Produit produit) {
+            Produit previous = byId.get(produit.getId());
+            if (previous != null && previous.getVersion() != null && produit.getVersion() != null) {
+                if (previous.getVersion() > produit.getVersion()) {
+                    // A change received after this instance applied a more recent write
+                    return;
+                }
+            }
+            remove(produit.getId());
+            byId.put(produit.getId(), produit);
+            sorted.values().forEach(set -> set.add(produit));
+        }
+
+        void remove(String id) {
+            Produit previous = byId.remove(id);
+            if (previous != null) {
+                sorted.values().forEach(set -> set.remove(previous));
+            }
+        }
+    }
+}
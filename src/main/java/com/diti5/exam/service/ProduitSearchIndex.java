@@ -0,0 +1,390 @@
+package com.diti5.exam.service;
+
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.text.Normalizer;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory full text index over the {@code nom} and {@code description} of the produits, serving type-ahead searches
+ * without querying Mongo.
+ * <p>
+ * Words are indexed by their trigrams, so that a query word finds the indexed words it prefixes and, from 4 characters on,
+ * the words within a small edit distance. The index is loaded when the application is ready, then kept up to date by
+ * {@link com.diti5.exam.service.impl.ProduitServiceImpl} on every write.
+ */
+@Service
+public class ProduitSearchIndex {
+
+    public static final String DOCUMENTS_METER_NAME = "produit.search.index.documents";
+    public static final String TERMS_METER_NAME = "produit.search.index.terms";
+    public static final String MEMORY_METER_NAME = "produit.search.index.memory";
+    public static final String REBUILD_METER_NAME = "produit.search.index.rebuild";
+    public static final String QUERY_METER_NAME = "produit.search.query";
+
+    private final Logger log = LoggerFactory.getLogger(ProduitSearchIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char START = '\u0001';
+
+    private static final int NOM = 1;
+    private static final int DESCRIPTION = 2;
+    private static final double NOM_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    private final ProduitRepository produitRepository;
+
+    private final Timer rebuildTimer;
+
+    private final Timer queryTimer;
+
+    private final RebuildableState<Index> index = new RebuildableState<>(new Index());
+
+    public ProduitSearchIndex(ProduitRepository produitRepository, MeterRegistry registry) {
+        this.produitRepository = produitRepository;
+        this.rebuildTimer = Timer.builder(REBUILD_METER_NAME).description("Time to load the produit search index").register(registry);
+        this.queryTimer = Timer.builder(QUERY_METER_NAME).description("Time to answer a produit search").register(registry);
+        Gauge
+            .builder(DOCUMENTS_METER_NAME, this, search -> search.index.get().entries.size())
+            .description("Number of produits in the search index")
+            .register(registry);
+        Gauge
+            .builder(TERMS_METER_NAME, this, search -> search.index.get().postings.size())
+            .description("Number of distinct words in the search index")
+            .register(registry);
+        Gauge
+            .builder(MEMORY_METER_NAME, this, search -> search.index.get().estimatedBytes())
+            .description("Estimated heap used by the search index")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild().subscribe(null, e -> log.error("Could not load the produit search index", e));
+    }
+
+    /**
+     * Reloads the whole index from the database. Searches keep using the previous index until the new one is complete.
+     *
+     * @return the number of indexed produits.
+     */
+    public Mono<Integer> rebuild() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+            return index
+                .rebuild(
+                    produitRepository
+                        .findAll()
+                        .reduce(new Index(), (rebuilt, produit) -> {
+                            rebuilt.add(produit);
+                            return rebuilt;
+                        })
+                )
+                .map(rebuilt -> {
+                    long nanos = sample.stop(rebuildTimer);
+                    log.info("Loaded {} produits in the search index in {} ms", rebuilt.entries.size(), nanos / 1_000_000);
+                    return rebuilt.entries.size();
+                });
+        });
+    }
+
+    /**
+     * Adds or replaces a produit in the index.
+     *
+     * @param produit the produit, as persisted.
+     */
+    public void index(Produit produit) {
+        Produit copy = new Produit()
+            .id(produit.getId())
+            .nom(produit.getNom())
+            .description(produit.getDescription())
+            .prix(produit.getPrix())
+            .version(produit.getVersion());
+        index.write(current -> current.add(copy));
+    }
+
+    /**
+     * Removes a produit from the index.
+     *
+     * @param id the id of the produit.
+     */
+    public void remove(String id) {
+        index.write(current -> current.remove(id));
+    }
+
+    /**
+     * Searches the produits whose {@code nom} or {@code description} contain every word of the query, as a prefix or with a typo.
+     * Matches on {@code nom} rank before matches on {@code description}, exact words before prefixes before typos.
+     *
+     * @param query the words to search.
+     * @param size the maximum number of produits to return.
+     * @return the best matching produits, best first.
+     */
+    public List<Produit> search(String query, int size) {
+        return queryTimer.record(() -> index.get().search(query, size));
+    }
+
+    static String normalize(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text != null) {
+            for (String word : SEPARATORS.split(normalize(text))) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Trigrams of the word prefixed by two start markers, so that the first trigrams also identify the first one or two letters.
+     */
+    static Set<String> trigrams(String word) {
+        String padded = "" + START + START + word;
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * How well an indexed word matches a query word: 1 for the same word, 0.9 when prefixed, less with typos, 0 otherwise.
+     */
+    static double similarity(String queryWord, String word) {
+        if (word.startsWith(queryWord)) {
+            return word.length() == queryWord.length() ? 1.0 : 0.9;
+        }
+        int allowedEdits = allowedEdits(queryWord);
+        if (allowedEdits == 0) {
+            return 0;
+        }
+        int edits = Math.min(
+            editDistance(queryWord, word),
+            editDistance(queryWord, word.substring(0, Math.min(word.length(), queryWord.length())))
+        );
+        return edits <= allowedEdits ? 0.7 - 0.2 * (edits - 1) : 0;
+    }
+
+    private static int allowedEdits(String queryWord) {
+        if (queryWord.length() >= 8) {
+            return 2;
+        }
+        return queryWord.length() >= 4 ? 1 : 0;
+    }
+
+    static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * The index data: reads are lock free, writes are serialized by the enclosing {@link RebuildableState}.
+     */
+    private static final class Index {
+
+        private static final long ENTRY_OVERHEAD = 160;
+        private static final long TERM_OVERHEAD = 120;
+        private static final long POSTING_OVERHEAD = 48;
+
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+        /**
+         * For each word, the ids of the produits containing it and in which fields.
+         */
+        private final Map<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+
+        private final Map<String, Set<String>> trigramWords = new ConcurrentHashMap<>();
+
+        private final AtomicLong postingCount = new AtomicLong();
+
+        private final AtomicLong indexedChars = new AtomicLong();
+
+        void add(Produit produit) {
+            remove(produit.getId());
+            Entry entry = new Entry(produit, words(produit.getNom()), words(produit.getDescription()));
+            entries.put(produit.getId(), entry);
+            indexedChars.addAndGet(entry.chars());
+            Map<String, Integer> fields = new HashMap<>();
+            entry.nomWords.forEach(word -> fields.merge(word, NOM, (a, b) -> a | b));
+            entry.descriptionWords.forEach(word -> fields.merge(word, DESCRIPTION, (a, b) -> a | b));
+            fields.forEach((word, field) -> {
+                postings
+                    .computeIfAbsent(
+                        word,
+                        w -> {
+                            trigrams(w)
+                                .forEach(trigram -> trigramWords.computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet()).add(w));
+                            return new ConcurrentHashMap<>();
+                        }
+                    )
+                    .put(produit.getId(), field);
+                postingCount.incrementAndGet();
+            });
+        }
+
+        void remove(String id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            indexedChars.addAndGet(-entry.chars());
+            Set<String> words = new LinkedHashSet<>(entry.nomWords);
+            words.addAll(entry.descriptionWords);
+            for (String word : words) {
+                Map<String, Integer> ids = postings.get(word);
+                if (ids != null && ids.remove(id) != null) {
+                    postingCount.decrementAndGet();
+                    if (ids.isEmpty()) {
+                        postings.remove(word);
+                        trigrams(word).forEach(trigram -> {
+                            Set<String> trigramSet = trigramWords.get(trigram);
+                            if (trigramSet != null) {
+                                trigramSet.remove(word);
+                                if (trigramSet.isEmpty()) {
+                                    trigramWords.remove(trigram);
+                                }
+                            }
+                        });
+                    }
+                }
+            }
+        }
+
+        List<Produit> search(String query, int size) {
+            Set<String> queryWords = words(query);
+            if (queryWords.isEmpty()) {
+                return List.of();
+            }
+            Map<String, Double> scores = null;
+            for (String queryWord : queryWords) {
+                Map<String, Double> wordScores = score(queryWord);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    // Every query word must match
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((id, score) -> score + wordScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores
+                .entrySet()
+                .stream()
+                .filter(score -> entries.containsKey(score.getKey()))
+                .sorted(
+                    Map.Entry
+                        .<String, Double>comparingByValue()
+                        .reversed()
+                        .thenComparing(score -> nomOf(score.getKey()), Comparator.nullsLast(Comparator.naturalOrder()))
+                )
+                .limit(size)
+                .map(score -> entries.get(score.getKey()))
+                .filter(entry -> entry != null)
+                .map(entry -> entry.produit)
+                .toList();
+        }
+
+        /**
+         * @return for each produit containing a word similar to the query word, its best weighted similarity.
+         */
+        private Map<String, Double> score(String queryWord) {
+            Set<String> queryTrigrams = trigrams(queryWord);
+            Map<String, Integer> sharedTrigrams = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                Set<String> words = trigramWords.get(trigram);
+                if (words != null) {
+                    words.forEach(word -> sharedTrigrams.merge(word, 1, Integer::sum));
+                }
+            }
+            // Each edit changes at most 3 trigrams: skip the words that cannot be within the allowed distance
+            int minShared = Math.max(1, queryTrigrams.size() - 3 * allowedEdits(queryWord));
+            Map<String, Double> scores = new HashMap<>();
+            sharedTrigrams.forEach((word, shared) -> {
+                if (shared < minShared) {
+                    return;
+                }
+                double similarity = similarity(queryWord, word);
+                Map<String, Integer> ids = postings.get(word);
+                if (similarity == 0 || ids == null) {
+                    return;
+                }
+                ids.forEach((id, fields) -> {
+                    double weight = (fields & NOM) != 0 ? NOM_WEIGHT : DESCRIPTION_WEIGHT;
+                    scores.merge(id, similarity * weight, Math::max);
+                });
+            });
+            return scores;
+        }
+
+        private String nomOf(String id) {
+            Entry entry = entries.get(id);
+            return entry == null ? null : entry.produit.getNom();
+        }
+
+        long estimatedBytes() {
+            return (
+                entries.size() *
+                ENTRY_OVERHEAD +
+                2 *
+                indexedChars.get() +
+                postings.size() *
+                TERM_OVERHEAD +
+                postingCount.get() *
+                POSTING_OVERHEAD +
+                trigramWords.size() *
+                TERM_OVERHEAD
+            );
+        }
+    }
+
+    private record Entry(Produit produit, Set<String> nomWords, Set<String> descriptionWords) {
+        long chars() {
+            return (
+                (produit.getId() == null ? 0 : produit.getId().length()) +
+                (produit.getNom() == null ? 0 : produit.getNom().length()) +
+                (produit.getDescription() == null ? 0 : produit.getDescription().length())
+            );
+        }
+    }
+}
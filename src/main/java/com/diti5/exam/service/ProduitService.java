@@ -1,6 +1,17 @@
 package com.diti5.exam.service;
 
 import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import com.diti5.exam.service.dto.ProduitBatchDTO;
+import com.diti5.exam.service.dto.ProduitBulkResultDTO;
+import com.diti5.exam.service.dto.ProduitChangeDTO;
+import com.diti5.exam.service.dto.ProduitCursor;
+import com.diti5.exam.service.dto.ProduitPageDTO;
+import com.diti5.exam.service.dto.ProduitPriceAdjustmentDTO;
+import com.diti5.exam.service.dto.ProduitPriceStatsDTO;
+import com.diti5.exam.service.dto.ProduitTotalCountDTO;
+import java.util.List;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -18,21 +29,52 @@ public interface ProduitService {
     Mono<Produit> save(Produit produit);
 
     /**
-     * Updates a produit.
+     * Creates or replaces many produits, using batched bulk writes.
+     * <p>
+     * Produits without id are created; the others replace the produit with the same id, or are created with that id.
+     *
+     * @param produits the entities to save.
+     * @param ordered whether to stop writing at the first failure, reporting every following produit as failed.
+     * @return the outcome of each produit, in the order they were received.
+     */
+    Flux<ProduitBulkResultDTO> saveAll(Flux<Produit> produits, boolean ordered);
+
+    /**
+     * Updates a produit: only if it is still at the given version when there is one, whatever its version otherwise.
      *
      * @param produit the entity to update.
-     * @return the persisted entity.
+     * @return the persisted entity, or an empty {@link Mono} when there is none with this id.
      */
     Mono<Produit> update(Produit produit);
 
     /**
-     * Partially updates a produit.
+     * Updates a produit only if it matches the given entity tags, see {@link ProduitETag}.
+     *
+     * @param produit the entity to update.
+     * @param ifMatch the {@code If-Match} header of the request.
+     * @return the persisted entity, or a {@link org.springframework.dao.OptimisticLockingFailureException} when the produit
+     * does not exist, does not match or was modified concurrently.
+     */
+    Mono<Produit> update(Produit produit, String ifMatch);
+
+    /**
+     * Partially updates a produit, atomically setting its non-null fields.
      *
      * @param produit the entity to update partially.
-     * @return the persisted entity.
+     * @return the persisted entity, or an empty {@link Mono} if it does not exist.
      */
     Mono<Produit> partialUpdate(Produit produit);
 
+    /**
+     * Partially updates a produit only if it matches the given entity tags, see {@link ProduitETag}.
+     *
+     * @param produit the entity to update partially.
+     * @param ifMatch the {@code If-Match} header of the request.
+     * @return the persisted entity, or a {@link org.springframework.dao.OptimisticLockingFailureException} when the produit
+     * does not exist, does not match or was modified concurrently.
+     */
+    Mono<Produit> partialUpdate(Produit produit, String ifMatch);
+
     /**
      * Get all the produits.
      *
@@ -41,6 +83,86 @@ public interface ProduitService {
      */
     Flux<Produit> findAll(Pageable pageable);
 
+    /**
+     * Get the produits matching the given criteria.
+     *
+     * @param criteria the filters to apply.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Flux<Produit> findByCriteria(ProduitCriteria criteria, Pageable pageable);
+
+    /**
+     * Get the produits matching the given criteria, reading only the given fields from the database.
+     *
+     * @param criteria the filters to apply.
+     * @param pageable the pagination information.
+     * @param fields the fields to read.
+     * @return the list of entities, with {@code null} for the fields not read.
+     */
+    Flux<Produit> findByCriteria(ProduitCriteria criteria, Pageable pageable, Set<String> fields);
+
+    /**
+     * Stream the produits matching the given criteria from the database, as they are read, without sharing them with other reads.
+     *
+     * @param criteria the filters to apply.
+     * @param pageable the pagination information.
+     * @return the entities, emitted as they are read.
+     */
+    Flux<Produit> streamByCriteria(ProduitCriteria criteria, Pageable pageable);
+
+    /**
+     * Returns the number of produits matching the given criteria.
+     *
+     * @param criteria the filters to apply.
+     * @return the number of matching entities in the database.
+     */
+    Mono<Long> countByCriteria(ProduitCriteria criteria);
+
+    /**
+     * Returns the total number of produits matching the given criteria for a listing, computed as configured by
+     * {@code application.produit.count}: filtered counts stop at the configured limit.
+     *
+     * @param criteria the filters to apply.
+     * @return the total count, or an empty {@link Mono} when counts are disabled.
+     */
+    Mono<ProduitTotalCountDTO> countTotal(ProduitCriteria criteria);
+
+    /**
+     * Get a page of the produits matching the given criteria, with their total as computed by {@link #countTotal}.
+     * <p>
+     * When {@code application.produit.listing.serve-stale} is on and the page is not read within
+     * {@code application.produit.listing.latency-budget}, or fails, the last page read for the same query is returned instead,
+     * with its age, if recent enough and no produit was written since.
+     *
+     * @param criteria the filters to apply.
+     * @param pageable the pagination information.
+     * @param fields the fields to read, or {@code null} to read them all.
+     * @return the page, stale when its age is set.
+     */
+    Mono<StaleWhileRevalidate.Result<ProduitPageDTO>> findPage(ProduitCriteria criteria, Pageable pageable, Set<String> fields);
+
+    /**
+     * Get the produits matching the given criteria following the given cursor, using keyset pagination.
+     *
+     * @param criteria the filters to apply.
+     * @param cursor the position to read from.
+     * @param size the maximum number of entities to return.
+     * @return the list of entities.
+     */
+    Flux<Produit> findAllAfter(ProduitCriteria criteria, ProduitCursor cursor, int size);
+
+    /**
+     * Get the produits matching the given criteria following the given cursor, reading only the given fields from the database.
+     *
+     * @param criteria the filters to apply.
+     * @param cursor the position to read from.
+     * @param size the maximum number of entities to return.
+     * @param fields the fields to read, which must include the sort property of the cursor.
+     * @return the list of entities, with {@code null} for the fields not read.
+     */
+    Flux<Produit> findAllAfter(ProduitCriteria criteria, ProduitCursor cursor, int size, Set<String> fields);
+
     /**
      * Returns the number of produits available.
      * @return the number of entities in the database.
@@ -48,6 +170,31 @@ public interface ProduitService {
      */
     Mono<Long> countAll();
 
+    /**
+     * Search the produits by the words of their nom and description, tolerating unfinished words and typos.
+     *
+     * @param query the words to search.
+     * @param size the maximum number of entities to return.
+     * @return the best matching entities, best first.
+     */
+    List<Produit> search(String query, int size);
+
+    /**
+     * Get the statistics of the prices of the produits, maintained in memory on every write.
+     *
+     * @return the count, minimum, maximum, average, percentiles and histogram of the prices.
+     */
+    ProduitPriceStatsDTO getPriceStatistics();
+
+    /**
+     * Watch the changes of the produits, as they are committed to the database.
+     *
+     * @param resumeToken the resume token of the last change already received, to receive the changes following it; or
+     * {@code null} to receive the changes from now on.
+     * @return the infinite stream of changes, or an {@link IllegalArgumentException} if the resume token is malformed.
+     */
+    Flux<ProduitChangeDTO> watchChanges(String resumeToken);
+
     /**
      * Get the "id" produit.
      *
@@ -56,6 +203,23 @@ public interface ProduitService {
      */
     Mono<Produit> findOne(String id);
 
+    /**
+     * Get the "id" produit, reading only the given fields from the database.
+     *
+     * @param id the id of the entity.
+     * @param fields the fields to read.
+     * @return the entity, with {@code null} for the fields not read.
+     */
+    Mono<Produit> findOne(String id, Set<String> fields);
+
+    /**
+     * Get the produits with the given ids, reading the ones not cached with a single {@code $in} query.
+     *
+     * @param ids the ids of the entities, duplicates being read once.
+     * @return the entities found, in the order of the ids, and the ids not found.
+     */
+    Mono<ProduitBatchDTO> findAllById(List<String> ids);
+
     /**
      * Delete the "id" produit.
      *
@@ -63,4 +227,29 @@ public interface ProduitService {
      * @return a Mono to signal the deletion
      */
     Mono<Void> delete(String id);
+
+    /**
+     * Delete the produits with the given ids, in batches.
+     *
+     * @param ids the ids of the entities.
+     * @return the number of deleted entities.
+     */
+    Mono<Long> deleteAll(List<String> ids);
+
+    /**
+     * Delete the produits matching the given criteria, in batches.
+     *
+     * @param criteria the filters the entities must match, which must not be empty.
+     * @return the number of deleted entities.
+     */
+    Mono<Long> deleteAll(ProduitCriteria criteria);
+
+    /**
+     * Change the prices of the produits matching the given criteria, with one update of the database per batch of ids.
+     *
+     * @param adjustment the filter the entities must match, which must not be empty, and either the percentage or the amount
+     * added to their prices.
+     * @return the number of modified entities.
+     */
+    Mono<Long> adjustPrix(ProduitPriceAdjustmentDTO adjustment);
 }
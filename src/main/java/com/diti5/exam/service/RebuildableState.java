@@ -0,0 +1,104 @@
+package com.diti5.exam.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import reactor.core.publisher.Mono;
+
+/**
+ * An in-memory state derived from the database, kept up to date by writes, and rebuilt from the database from time to time.
+ * <p>
+ * Each rebuild journals the writes applied while it reads the database, and replays them on the rebuilt state before installing
+ * it, so that no write is lost. Rebuilds may overlap: a rebuild is only installed if no rebuild started after it was installed
+ * first, so that the installed state is never older than a rebuild already done.
+ *
+ * @param <S> the type of the state, modified under the lock of this instance.
+ */
+public class RebuildableState<S> {
+
+    private volatile S state;
+
+    /**
+     * The rebuilds reading the database, guarded by the lock of this instance.
+     */
+    private final List<Rebuild<S>> rebuilds = new ArrayList<>();
+
+    /**
+     * Sequence numbers of the last rebuild started and of the rebuild installed, guarded by the lock of this instance.
+     */
+    private long started;
+
+    private long installed;
+
+    /**
+     * @param initial the state until the first rebuild, or {@code null} to ignore the writes until then.
+     */
+    public RebuildableState(S initial) {
+        this.state = initial;
+    }
+
+    /**
+     * @return the current state, or {@code null} until the first rebuild if there was no initial state; reads outside of the
+     * lock must be safe against concurrent writes.
+     */
+    public S get() {
+        return state;
+    }
+
+    /**
+     * @param read reads the state, under the lock of this instance.
+     * @return the result of the read.
+     */
+    public synchronized <R> R read(Function<S, R> read) {
+        return read.apply(state);
+    }
+
+    /**
+     * Applies a write to the current state, and journals it for the rebuilds in progress.
+     *
+     * @param write the write.
+     */
+    public synchronized void write(Consumer<S> write) {
+        if (state != null) {
+            write.accept(state);
+        }
+        rebuilds.forEach(rebuild -> rebuild.journal().add(write));
+    }
+
+    /**
+     * Rebuilds the state, journaling the writes from the subscription to the returned {@link Mono} on. The current state is kept
+     * until the rebuilt one is complete.
+     *
+     * @param load loads the state from the database.
+     * @return the installed state, which is a later rebuild when one was installed first.
+     */
+    public Mono<S> rebuild(Mono<S> load) {
+        return Mono.defer(() -> {
+            Rebuild<S> rebuild;
+            synchronized (this) {
+                rebuild = new Rebuild<>(++started, new ArrayList<>());
+                rebuilds.add(rebuild);
+            }
+            return load
+                .map(loaded -> install(rebuild, loaded))
+                .doFinally(signal -> {
+                    synchronized (this) {
+                        rebuilds.remove(rebuild);
+                    }
+                });
+        });
+    }
+
+    private synchronized S install(Rebuild<S> rebuild, S loaded) {
+        rebuilds.remove(rebuild);
+        if (rebuild.sequence() > installed) {
+            rebuild.journal().forEach(write -> write.accept(loaded));
+            installed = rebuild.sequence();
+            state = loaded;
+        }
+        return state;
+    }
+
+    private record Rebuild<S>(long sequence, List<Consumer<S>> journal) {}
+}
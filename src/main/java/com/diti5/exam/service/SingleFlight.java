@@ -0,0 +1,95 @@
+package com.diti5.exam.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalesces concurrent identical reads: while a read is in flight, the same read subscribes to its result instead of querying
+ * the database again.
+ * <p>
+ * A read is shared only while it is in flight, its result is not kept afterwards. The number of executed and coalesced reads
+ * is counted by the {@value #METER_NAME} meter, tagged with the name of the read.
+ *
+ * @param <K> the type of the keys identifying identical reads.
+ * @param <V> the type of the results.
+ */
+public class SingleFlight<K, V> {
+
+    public static final String METER_NAME = "produit.reads";
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.executed =
+            Counter
+                .builder(METER_NAME)
+                .tag("read", name)
+                .tag("result", "executed")
+                .description("Reads sent to the database")
+                .register(registry);
+        this.coalesced =
+            Counter
+                .builder(METER_NAME)
+                .tag("read", name)
+                .tag("result", "coalesced")
+                .description("Reads served by an identical read already in flight")
+                .register(registry);
+    }
+
+    /**
+     * Runs the read, unless an identical read is in flight. Cancelling the returned {@link Mono} does not cancel the read, which
+     * may be shared.
+     *
+     * @param key the key identifying the read.
+     * @param read the read, subscribed to at most once while it is in flight.
+     * @return the result of the read, empty when the read is.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> read) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> shared = inFlight.putIfAbsent(key, future);
+            if (shared != null) {
+                coalesced.increment();
+                return Mono.fromFuture(shared, true);
+            }
+            executed.increment();
+            read
+                .get()
+                .toFuture()
+                .whenComplete((result, e) -> {
+                    inFlight.remove(key, future);
+                    if (e != null) {
+                        future.completeExceptionally(e);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            return Mono.fromFuture(future, true);
+        });
+    }
+
+    /**
+     * Stops sharing the read in flight for the key, so that reads made after a write do not get a result read before it.
+     *
+     * @param key the key identifying the read.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Stops sharing all the reads in flight.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+}
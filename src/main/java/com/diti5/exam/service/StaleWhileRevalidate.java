@@ -0,0 +1,180 @@
+package com.diti5.exam.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the last result of each read, and serves it instead of a read exceeding its latency budget or failing.
+ * <p>
+ * A read with no recent result is neither timed out nor recovered. Otherwise, when the read is not done within the budget or
+ * fails, the last result is served along with its age, while the read goes on in the background and updates the last result
+ * once done. At most one such read runs for a key: the identical reads made meanwhile wait for it within their own budget, so
+ * that a slow database does not get more queries. The last results are dropped by {@link #forgetAll()} after a write, so that
+ * a result missing it is never served instead of a read. The stale results served are counted by the {@value #METER_NAME} meter,
+ * tagged with the name of the read and whether it was too slow or failed.
+ *
+ * @param <K> the type of the keys identifying identical reads.
+ * @param <V> the type of the results.
+ */
+public class StaleWhileRevalidate<K, V> {
+
+    public static final String METER_NAME = "produit.reads.stale";
+
+    private final Logger log = LoggerFactory.getLogger(StaleWhileRevalidate.class);
+
+    private final Cache<K, Stored<V>> results;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> refreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented by {@link #forgetAll()}, so that the reads started before are not kept as last results.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Duration latencyBudget;
+
+    private final Duration maxStaleness;
+
+    private final Clock clock;
+
+    private final Counter timedOut;
+
+    private final Counter failed;
+
+    /**
+     * @param name the name of the read, for the meter.
+     * @param latencyBudget how long a read is awaited before its last result is served instead.
+     * @param maxStaleness how old a last result may be to be served.
+     * @param maxSize the maximum number of keys whose last result is kept.
+     * @param registry the registry of the meter.
+     */
+    public StaleWhileRevalidate(String name, Duration latencyBudget, Duration maxStaleness, long maxSize, MeterRegistry registry) {
+        this(name, latencyBudget, maxStaleness, maxSize, registry, Clock.systemUTC());
+    }
+
+    StaleWhileRevalidate(String name, Duration latencyBudget, Duration maxStaleness, long maxSize, MeterRegistry registry, Clock clock) {
+        this.results = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.latencyBudget = latencyBudget;
+        this.maxStaleness = maxStaleness;
+        this.clock = clock;
+        this.timedOut =
+            Counter
+                .builder(METER_NAME)
+                .tag("read", name)
+                .tag("reason", "timeout")
+                .description("Stale results served instead of a read exceeding its latency budget")
+                .register(registry);
+        this.failed =
+            Counter
+                .builder(METER_NAME)
+                .tag("read", name)
+                .tag("reason", "error")
+                .description("Stale results served instead of a failed read")
+                .register(registry);
+    }
+
+    /**
+     * Runs the read, or serves its last result if the read is too slow or fails. Cancelling the returned {@link Mono} does not
+     * cancel the read once it may refresh the last result, nor does the end of the latency budget.
+     *
+     * @param key the key identifying the read.
+     * @param read the read.
+     * @return the result of the read, or its last result with its age, empty when the read is.
+     */
+    public Mono<Result<V>> execute(K key, Supplier<Mono<V>> read) {
+        return Mono.defer(() -> {
+            long readGeneration = generation.get();
+            Stored<V> stored = results.getIfPresent(key);
+            if (stored == null || stored.readAt().isBefore(clock.instant().minus(maxStaleness))) {
+                return read.get().doOnNext(value -> store(key, value, readGeneration)).map(value -> new Result<>(value, null));
+            }
+            return Mono
+                .fromFuture(refresh(key, read), true)
+                .map(value -> new Result<>(value, null))
+                .timeout(latencyBudget)
+                .onErrorResume(e -> {
+                    if (e instanceof TimeoutException) {
+                        timedOut.increment();
+                    } else {
+                        failed.increment();
+                        log.warn("Serving a result read at {} instead of a failed read: {}", stored.readAt(), e.getMessage());
+                    }
+                    return Mono.just(new Result<>(stored.value(), Duration.between(stored.readAt(), clock.instant())));
+                });
+        });
+    }
+
+    /**
+     * @return the read in flight for the key, started if there is none.
+     */
+    private CompletableFuture<V> refresh(K key, Supplier<Mono<V>> read) {
+        CompletableFuture<V> refresh = new CompletableFuture<>();
+        CompletableFuture<V> running = refreshes.putIfAbsent(key, refresh);
+        if (running != null) {
+            return running;
+        }
+        long readGeneration = generation.get();
+        read
+            .get()
+            .toFuture()
+            .whenComplete((value, e) -> {
+                if (e == null && value != null) {
+                    store(key, value, readGeneration);
+                }
+                refreshes.remove(key, refresh);
+                if (e != null) {
+                    refresh.completeExceptionally(e);
+                } else {
+                    refresh.complete(value);
+                }
+            });
+        return refresh;
+    }
+
+    /**
+     * Drops the last results, and stops sharing the reads in flight, which may all miss a write just made.
+     */
+    public void forgetAll() {
+        generation.incrementAndGet();
+        results.invalidateAll();
+        refreshes.clear();
+    }
+
+    private void store(K key, V value, long readGeneration) {
+        if (generation.get() != readGeneration) {
+            return;
+        }
+        Stored<V> stored = new Stored<>(value, clock.instant());
+        results.put(key, stored);
+        if (generation.get() != readGeneration) {
+            // Forgotten while being stored
+            results.asMap().remove(key, stored);
+        }
+    }
+
+    /**
+     * @param value the result.
+     * @param age the age of the result when it was served instead of the read, or {@code null} when the read served it.
+     */
+    public record Result<V>(V value, Duration age) {
+        public boolean isStale() {
+            return age != null;
+        }
+    }
+
+    private record Stored<V>(V value, Instant readAt) {}
+}
@@ -0,0 +1,54 @@
+package com.diti5.exam.service.dto;
+
+import com.diti5.exam.domain.Produit;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO representing the produits read by a batch of ids - the produits found, in the order of the ids, and the ids not found.
+ */
+public class ProduitBatchDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<Produit> produits;
+
+    private List<String> missing;
+
+    public ProduitBatchDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitBatchDTO(List<Produit> produits, List<String> missing) {
+        this.produits = produits;
+        this.missing = missing;
+    }
+
+    public List<Produit> getProduits() {
+        return produits;
+    }
+
+    public void setProduits(List<Produit> produits) {
+        this.produits = produits;
+    }
+
+    /**
+     * @return the requested ids matching no produit, in the order they were requested.
+     */
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitBatchDTO{" +
+            "produits=" + (produits != null ? produits.size() + " produits" : null) +
+            ", missing=" + missing +
+            "}";
+    }
+}
@@ -0,0 +1,51 @@
+package com.diti5.exam.service.dto;
+
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO representing the produits to delete in bulk - either a list of ids or a filter.
+ */
+public class ProduitBulkDeleteDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<String> ids;
+
+    private ProduitCriteria filter;
+
+    public ProduitBulkDeleteDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitBulkDeleteDTO(List<String> ids, ProduitCriteria filter) {
+        this.ids = ids;
+        this.filter = filter;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public ProduitCriteria getFilter() {
+        return filter;
+    }
+
+    public void setFilter(ProduitCriteria filter) {
+        this.filter = filter;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitBulkDeleteDTO{" +
+            "ids=" + (ids != null ? ids.size() + " ids" : null) +
+            ", filter=" + filter +
+            "}";
+    }
+}
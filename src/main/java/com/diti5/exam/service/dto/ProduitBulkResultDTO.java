@@ -0,0 +1,91 @@
+package com.diti5.exam.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO representing the outcome of one produit of a bulk write.
+ */
+public class ProduitBulkResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED,
+    }
+
+    private long index;
+
+    private String id;
+
+    private Status status;
+
+    private String error;
+
+    public ProduitBulkResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitBulkResultDTO(long index, String id, Status status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static ProduitBulkResultDTO created(long index, String id) {
+        return new ProduitBulkResultDTO(index, id, Status.CREATED, null);
+    }
+
+    public static ProduitBulkResultDTO updated(long index, String id) {
+        return new ProduitBulkResultDTO(index, id, Status.UPDATED, null);
+    }
+
+    public static ProduitBulkResultDTO failed(long index, String id, String error) {
+        return new ProduitBulkResultDTO(index, id, Status.FAILED, error);
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitBulkResultDTO{" +
+            "index=" + index +
+            ", id='" + id + "'" +
+            ", status=" + status +
+            ", error='" + error + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,88 @@
+package com.diti5.exam.service.dto;
+
+import com.diti5.exam.domain.Produit;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+
+/**
+ * A DTO representing a change of a produit, read from the change stream of the {@code produit} collection.
+ */
+public class ProduitChangeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE,
+    }
+
+    private Operation operation;
+
+    private String id;
+
+    private Produit produit;
+
+    private String resumeToken;
+
+    public ProduitChangeDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitChangeDTO(Operation operation, String id, Produit produit, String resumeToken) {
+        this.operation = operation;
+        this.id = id;
+        this.produit = produit;
+        this.resumeToken = resumeToken;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the produit after the change, or {@code null} for a deletion, or when it was deleted before being read.
+     */
+    public Produit getProduit() {
+        return produit;
+    }
+
+    public void setProduit(Produit produit) {
+        this.produit = produit;
+    }
+
+    /**
+     * @return the token to resume the change stream right after this change, sent as the id of the server-sent event.
+     */
+    @JsonIgnore
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitChangeDTO{" +
+            "operation=" + operation +
+            ", id='" + id + "'" +
+            ", produit=" + produit +
+            ", resumeToken='" + resumeToken + "'" +
+            "}";
+    }
+}
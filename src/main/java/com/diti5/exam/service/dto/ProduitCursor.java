@@ -0,0 +1,174 @@
+package com.diti5.exam.service.dto;
+
+import com.diti5.exam.domain.Produit;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.data.domain.Sort;
+
+/**
+ * A position in a keyset-paginated listing of {@link Produit}: the sort order and, once a page has been
+ * read, the sort value and id of the last produit returned.
+ * <p>
+ * The cursor travels to clients as an opaque, URL-safe token (see {@link #encode()} and {@link #decode(String)}).
+ */
+public final class ProduitCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Properties a cursor can be ordered by, each one backed by a {@code (property, _id)} index.
+     */
+    public static final List<String> SORTABLE_PROPERTIES = List.of("id", "nom", "prix");
+
+    private static final String SEPARATOR = ".";
+    private static final String NULL_VALUE = "~";
+
+    private final Sort.Order order;
+
+    private final Object lastValue;
+
+    private final String lastId;
+
+    private ProduitCursor(Sort.Order order, Object lastValue, String lastId) {
+        this.order = order;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Creates a cursor positioned before the first produit.
+     *
+     * @param sort the requested sort, on at most one of the {@link #SORTABLE_PROPERTIES} optionally followed by id;
+     * unsorted means by id.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the sort is not supported by cursor pagination.
+     */
+    public static ProduitCursor start(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() == 2 && "id".equals(orders.get(1).getProperty())) {
+            // The id is always the tie-breaker of a cursor
+            orders = orders.subList(0, 1);
+        }
+        if (orders.isEmpty()) {
+            return new ProduitCursor(Sort.Order.asc("id"), null, null);
+        }
+        if (orders.size() > 1 || !SORTABLE_PROPERTIES.contains(orders.get(0).getProperty())) {
+            throw new IllegalArgumentException("Cursor pagination supports a single sort on " + SORTABLE_PROPERTIES);
+        }
+        Sort.Order order = orders.get(0);
+        return new ProduitCursor(new Sort.Order(order.getDirection(), order.getProperty()), null, null);
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the token.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static ProduitCursor decode(String token) {
+        String[] parts = token.split("\\" + SEPARATOR, -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        String property = fromBase64(parts[0]);
+        if (!SORTABLE_PROPERTIES.contains(property)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        Sort.Direction direction = Sort.Direction.fromString(fromBase64(parts[1]));
+        String lastId = parts[2].isEmpty() ? null : fromBase64(parts[2]);
+        Object lastValue = NULL_VALUE.equals(parts[3]) ? null : parseValue(property, fromBase64(parts[3]));
+        return new ProduitCursor(new Sort.Order(direction, property), lastValue, lastId);
+    }
+
+    /**
+     * Returns the cursor positioned right after the given produit, keeping the same order.
+     *
+     * @param produit the last produit of the current page.
+     * @return the next cursor.
+     */
+    public ProduitCursor after(Produit produit) {
+        return new ProduitCursor(order, valueOf(order.getProperty(), produit), produit.getId());
+    }
+
+    /**
+     * Encodes this cursor as an opaque, URL-safe token.
+     *
+     * @return the token.
+     */
+    public String encode() {
+        return String.join(
+            SEPARATOR,
+            toBase64(order.getProperty()),
+            toBase64(order.getDirection().name()),
+            lastId == null ? "" : toBase64(lastId),
+            lastValue == null ? NULL_VALUE : toBase64(lastValue.toString())
+        );
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public Object getLastValue() {
+        return lastValue;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    private static Object valueOf(String property, Produit produit) {
+        return switch (property) {
+            case "nom" -> produit.getNom();
+            case "prix" -> produit.getPrix();
+            default -> produit.getId();
+        };
+    }
+
+    private static Object parseValue(String property, String value) {
+        try {
+            return "prix".equals(property) ? Double.valueOf(value) : value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    private static String toBase64(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String fromBase64(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProduitCursor)) {
+            return false;
+        }
+        ProduitCursor that = (ProduitCursor) o;
+        return order.equals(that.order) && Objects.equals(lastValue, that.lastValue) && Objects.equals(lastId, that.lastId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(order, lastValue, lastId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitCursor{" +
+            "order=" + order +
+            ", lastValue=" + lastValue +
+            ", lastId='" + lastId + "'" +
+            "}";
+    }
+}
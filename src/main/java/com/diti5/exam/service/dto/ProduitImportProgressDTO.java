@@ -0,0 +1,148 @@
+package com.diti5.exam.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO representing the progress of a produit import, sent after each batch: the counters cover every row read so far,
+ * the errors only the rows of the batch.
+ */
+public class ProduitImportProgressDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A row of the feed that was not imported.
+     */
+    public static class RowError implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long row;
+
+        private String id;
+
+        private String message;
+
+        public RowError() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public RowError(long row, String id, String message) {
+            this.row = row;
+            this.id = id;
+            this.message = message;
+        }
+
+        /**
+         * @return the line number of the row in the feed, starting at 1.
+         */
+        public long getRow() {
+            return row;
+        }
+
+        public void setRow(long row) {
+            this.row = row;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "RowError{" +
+                "row=" + row +
+                ", id='" + id + "'" +
+                ", message='" + message + "'" +
+                "}";
+        }
+    }
+
+    private long rows;
+
+    private long created;
+
+    private long updated;
+
+    private long failed;
+
+    private List<RowError> errors;
+
+    public ProduitImportProgressDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitImportProgressDTO(long rows, long created, long updated, long failed, List<RowError> errors) {
+        this.rows = rows;
+        this.created = created;
+        this.updated = updated;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitImportProgressDTO{" +
+            "rows=" + rows +
+            ", created=" + created +
+            ", updated=" + updated +
+            ", failed=" + failed +
+            ", errors=" + errors +
+            "}";
+    }
+}
@@ -0,0 +1,54 @@
+package com.diti5.exam.service.dto;
+
+import com.diti5.exam.domain.Produit;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A DTO representing a page of a produit listing - the produits of the page and their total, when counted.
+ */
+public class ProduitPageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<Produit> produits;
+
+    private ProduitTotalCountDTO total;
+
+    public ProduitPageDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitPageDTO(List<Produit> produits, ProduitTotalCountDTO total) {
+        this.produits = produits;
+        this.total = total;
+    }
+
+    public List<Produit> getProduits() {
+        return produits;
+    }
+
+    public void setProduits(List<Produit> produits) {
+        this.produits = produits;
+    }
+
+    /**
+     * @return the total of the produits matching the listing, or {@code null} when counts are disabled.
+     */
+    public ProduitTotalCountDTO getTotal() {
+        return total;
+    }
+
+    public void setTotal(ProduitTotalCountDTO total) {
+        this.total = total;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitPageDTO{" +
+            "produits=" + (produits != null ? produits.size() + " produits" : null) +
+            ", total=" + total +
+            "}";
+    }
+}
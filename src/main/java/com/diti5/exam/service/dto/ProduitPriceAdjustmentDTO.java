@@ -0,0 +1,83 @@
+package com.diti5.exam.service.dto;
+
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import java.io.Serializable;
+
+/**
+ * A DTO representing a change of the prices of the produits matching a filter - either a percentage or an absolute amount.
+ */
+public class ProduitPriceAdjustmentDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private ProduitCriteria filter;
+
+    /**
+     * The percentage added to the prices, {@code -10} for a 10% discount.
+     */
+    private Double percent;
+
+    /**
+     * The amount added to the prices, negative to lower them.
+     */
+    private Double amount;
+
+    /**
+     * The number of decimal places the new prices are rounded to, or {@code null} to keep them unrounded.
+     */
+    private Integer scale;
+
+    public ProduitPriceAdjustmentDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitPriceAdjustmentDTO(ProduitCriteria filter, Double percent, Double amount, Integer scale) {
+        this.filter = filter;
+        this.percent = percent;
+        this.amount = amount;
+        this.scale = scale;
+    }
+
+    public ProduitCriteria getFilter() {
+        return filter;
+    }
+
+    public void setFilter(ProduitCriteria filter) {
+        this.filter = filter;
+    }
+
+    public Double getPercent() {
+        return percent;
+    }
+
+    public void setPercent(Double percent) {
+        this.percent = percent;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+
+    public Integer getScale() {
+        return scale;
+    }
+
+    public void setScale(Integer scale) {
+        this.scale = scale;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitPriceAdjustmentDTO{" +
+            "filter=" + filter +
+            ", percent=" + percent +
+            ", amount=" + amount +
+            ", scale=" + scale +
+            "}";
+    }
+}
@@ -0,0 +1,176 @@
+package com.diti5.exam.service.dto;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO representing the statistics of the prices of the produits, over the produits having a price.
+ */
+public class ProduitPriceStatsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A bucket of the price histogram, counting the prices from its lower bound, included, to its upper bound, excluded.
+     */
+    public static class Bucket implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Double from;
+
+        private Double to;
+
+        private long count;
+
+        public Bucket() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public Bucket(Double from, Double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        /**
+         * @return the lower bound, or {@code null} for the first bucket.
+         */
+        public Double getFrom() {
+            return from;
+        }
+
+        public void setFrom(Double from) {
+            this.from = from;
+        }
+
+        /**
+         * @return the upper bound, or {@code null} for the last bucket.
+         */
+        public Double getTo() {
+            return to;
+        }
+
+        public void setTo(Double to) {
+            this.to = to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Bucket{" +
+                "from=" + from +
+                ", to=" + to +
+                ", count=" + count +
+                "}";
+        }
+    }
+
+    private long count;
+
+    private Double min;
+
+    private Double max;
+
+    private Double average;
+
+    private Map<String, Double> percentiles;
+
+    private List<Bucket> histogram;
+
+    public ProduitPriceStatsDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProduitPriceStatsDTO(
+        long count,
+        Double min,
+        Double max,
+        Double average,
+        Map<String, Double> percentiles,
+        List<Bucket> histogram
+    ) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.average = average;
+        this.percentiles = percentiles;
+        this.histogram = histogram;
+    }
+
+    /**
+     * @return the number of produits having a price.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Double getAverage() {
+        return average;
+    }
+
+    public void setAverage(Double average) {
+        this.average = average;
+    }
+
+    /**
+     * @return the estimated percentiles, such as {@code p50} for the median, within 1% of the exact prices.
+     */
+    public Map<String, Double> getPercentiles() {
+        return percentiles;
+    }
+
+    public void setPercentiles(Map<String, Double> percentiles) {
+        this.percentiles = percentiles;
+    }
+
+    public List<Bucket> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(List<Bucket> histogram) {
+        this.histogram = histogram;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitPriceStatsDTO{" +
+            "count=" + count +
+            ", min=" + min +
+            ", max=" + max +
+            ", average=" + average +
+            ", percentiles=" + percentiles +
+            ", histogram=" + histogram +
+            "}";
+    }
+}
@@ -0,0 +1,74 @@
+package com.diti5.exam.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO representing the total number of produits of a listing, and how far it can be trusted.
+ */
+public class ProduitTotalCountDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Accuracy {
+        /**
+         * Counted for this request.
+         */
+        EXACT,
+        /**
+         * Read from the collection metadata.
+         */
+        ESTIMATED,
+        /**
+         * Counted by a previous request.
+         */
+        CACHED,
+        /**
+         * The count stopped at a limit: there are at least that many produits.
+         */
+        LOWER_BOUND,
+    }
+
+    private final long count;
+
+    private final Accuracy accuracy;
+
+    public ProduitTotalCountDTO(long count, Accuracy accuracy) {
+        this.count = count;
+        this.accuracy = accuracy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Accuracy getAccuracy() {
+        return accuracy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProduitTotalCountDTO)) {
+            return false;
+        }
+        ProduitTotalCountDTO that = (ProduitTotalCountDTO) o;
+        return count == that.count && accuracy == that.accuracy;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, accuracy);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProduitTotalCountDTO{" +
+            "count=" + count +
+            ", accuracy=" + accuracy +
+            "}";
+    }
+}
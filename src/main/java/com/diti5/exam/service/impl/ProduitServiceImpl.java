@@ -1,14 +1,62 @@
 package com.diti5.exam.service.impl;
 
+import com.diti5.exam.config.ApplicationProperties;
 import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
 import com.diti5.exam.repository.ProduitRepository;
+import com.diti5.exam.service.BatchLoader;
+import com.diti5.exam.service.GroupCommit;
+import com.diti5.exam.service.ProduitETag;
+import com.diti5.exam.service.ProduitPriceStatistics;
+import com.diti5.exam.service.ProduitReplica;
+import com.diti5.exam.service.ProduitSearchIndex;
 import com.diti5.exam.service.ProduitService;
+import com.diti5.exam.service.SingleFlight;
+import com.diti5.exam.service.StaleWhileRevalidate;
+import com.diti5.exam.service.dto.ProduitBatchDTO;
+import com.diti5.exam.service.dto.ProduitBulkResultDTO;
+import com.diti5.exam.service.dto.ProduitChangeDTO;
+import com.diti5.exam.service.dto.ProduitCursor;
+import com.diti5.exam.service.dto.ProduitPageDTO;
+import com.diti5.exam.service.dto.ProduitPriceAdjustmentDTO;
+import com.diti5.exam.service.dto.ProduitPriceStatsDTO;
+import com.diti5.exam.service.dto.ProduitTotalCountDTO;
+import com.diti5.exam.service.dto.ProduitTotalCountDTO.Accuracy;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * Service Implementation for managing {@link com.diti5.exam.domain.Produit}.
@@ -18,22 +66,213 @@ public class ProduitServiceImpl implements ProduitService {
 
     private final Logger log = LoggerFactory.getLogger(ProduitServiceImpl.class);
 
+    public static final String LOADER_METER_NAME = "produit.reads.batch";
+
+    private static final String NOT_WRITTEN = "Not written: a previous produit failed in ordered mode";
+
+    private static final String RESUME_TOKEN_DATA = "_data";
+
+    private static final Pattern RESUME_TOKEN = Pattern.compile("[0-9A-Fa-f]+");
+
     private final ProduitRepository produitRepository;
 
-    public ProduitServiceImpl(ProduitRepository produitRepository) {
+    private final ApplicationProperties applicationProperties;
+
+    private final ProduitSearchIndex produitSearchIndex;
+
+    private final ProduitPriceStatistics produitPriceStatistics;
+
+    private final ProduitReplica produitReplica;
+
+    private final AsyncCache<String, Produit> produitCache;
+
+    private final SingleFlight<String, Produit> produitReads;
+
+    private final BatchLoader<String, Produit> produitLoader;
+
+    /**
+     * Buffers the inserts of new produits when {@code application.produit.inserts.group-commit} is on, {@code null} otherwise.
+     */
+    private final GroupCommit<Produit> produitInserts;
+
+    private final SingleFlight<PageKey, List<Produit>> pageReads;
+
+    private final SingleFlight<ProduitCriteria, Long> countReads;
+
+    /**
+     * Serves the last page of a query instead of a slow or failed read when {@code application.produit.listing.serve-stale} is
+     * on, {@code null} otherwise.
+     */
+    private final StaleWhileRevalidate<PageKey, ProduitPageDTO> stalePages;
+
+    /**
+     * The count of the {@code CACHED} mode, replaced on every write.
+     */
+    private final AtomicReference<Mono<Long>> cachedCount = new AtomicReference<>();
+
+    public ProduitServiceImpl(
+        ProduitRepository produitRepository,
+        ApplicationProperties applicationProperties,
+        ProduitSearchIndex produitSearchIndex,
+        ProduitPriceStatistics produitPriceStatistics,
+        ProduitReplica produitReplica,
+        AsyncCache<String, Produit> produitCache,
+        MeterRegistry meterRegistry
+    ) {
         this.produitRepository = produitRepository;
+        this.applicationProperties = applicationProperties;
+        this.produitSearchIndex = produitSearchIndex;
+        this.produitPriceStatistics = produitPriceStatistics;
+        this.produitReplica = produitReplica;
+        this.produitCache = produitCache;
+        this.produitReads = new SingleFlight<>("findOne", meterRegistry);
+        ApplicationProperties.Produit.Loader loader = applicationProperties.getProduit().getLoader();
+        this.produitLoader =
+            new BatchLoader<>(
+                LOADER_METER_NAME,
+                "findOne",
+                produitRepository::findById,
+                produitRepository::findAllById,
+                Produit::getId,
+                loader.getWindow(),
+                loader.getMaxBatchSize(),
+                Schedulers.parallel(),
+                meterRegistry
+            );
+        ApplicationProperties.Produit.Inserts inserts = applicationProperties.getProduit().getInserts();
+        this.produitInserts =
+            inserts.isGroupCommit()
+                ? new GroupCommit<>(
+                    "insert",
+                    produitRepository::insert,
+                    // A produit of a failed batch may have been inserted before the failure
+                    produit ->
+                        produitRepository.findById(produit.getId()).switchIfEmpty(Mono.defer(() -> produitRepository.insert(produit))),
+                    inserts.getLinger(),
+                    inserts.getMaxBatchSize(),
+                    Schedulers.parallel(),
+                    meterRegistry
+                )
+                : null;
+        this.pageReads = new SingleFlight<>("findByCriteria", meterRegistry);
+        this.countReads = new SingleFlight<>("countByCriteria", meterRegistry);
+        ApplicationProperties.Produit.Listing listing = applicationProperties.getProduit().getListing();
+        this.stalePages =
+            listing.isServeStale()
+                ? new StaleWhileRevalidate<>(
+                    "page",
+                    listing.getLatencyBudget(),
+                    listing.getMaxStaleness(),
+                    listing.getMaxSize(),
+                    meterRegistry
+                )
+                : null;
+        resetCachedCount();
     }
 
     @Override
     public Mono<Produit> save(Produit produit) {
         log.debug("Request to save Produit : {}", produit);
-        return produitRepository.save(produit);
+        if (produitInserts != null && produit.getId() == null) {
+            // The id is set beforehand so that a produit retried after a failed batch is not inserted twice
+            produit.setId(new ObjectId().toHexString());
+            return produitInserts.submit(produit).doOnNext(this::written);
+        }
+        return produitRepository.save(produit).doOnNext(this::written);
+    }
+
+    @Override
+    public Flux<ProduitBulkResultDTO> saveAll(Flux<Produit> produits, boolean ordered) {
+        log.debug("Request to bulk save Produits, ordered : {}", ordered);
+        AtomicBoolean aborted = new AtomicBoolean();
+        return produits
+            .index()
+            .buffer(applicationProperties.getProduit().getBulk().getBatchSize())
+            .concatMap(batch -> {
+                if (aborted.get()) {
+                    return Flux
+                        .fromIterable(batch)
+                        .map(item -> ProduitBulkResultDTO.failed(item.getT1(), item.getT2().getId(), NOT_WRITTEN));
+                }
+                List<Produit> entities = batch.stream().map(Tuple2::getT2).toList();
+                entities
+                    .stream()
+                    .filter(produit -> produit.getId() == null)
+                    .forEach(produit -> produit.setId(new ObjectId().toHexString()));
+                return produitRepository
+                    .upsertAll(entities, ordered)
+                    .map(result -> toBulkResults(batch, result, List.of(), ordered))
+                    .onErrorResume(
+                        BulkOperationException.class,
+                        e -> {
+                            aborted.set(ordered);
+                            return Mono.just(toBulkResults(batch, e.getResult(), e.getErrors(), ordered));
+                        }
+                    )
+                    .flatMapMany(results -> writtenAll(results).thenMany(Flux.fromIterable(results)));
+            });
+    }
+
+    /**
+     * Re-reads the produits written by a bulk save, whose versions were incremented by the database, so that the search index,
+     * the price statistics and the replica hold them as stored.
+     */
+    private Mono<Void> writtenAll(List<ProduitBulkResultDTO> results) {
+        List<String> ids = results
+            .stream()
+            .filter(result -> result.getStatus() != ProduitBulkResultDTO.Status.FAILED)
+            .map(ProduitBulkResultDTO::getId)
+            .toList();
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return produitRepository
+            .findAllById(ids)
+            .doOnNext(this::written)
+            .then()
+            .onErrorResume(e -> {
+                // The produits are written whether or not they are re-read: the stale copies are dropped instead
+                log.warn("Could not re-read {} produits written in bulk: {}", ids.size(), e.getMessage());
+                ids.forEach(this::evicted);
+                return Mono.empty();
+            });
+    }
+
+    private List<ProduitBulkResultDTO> toBulkResults(
+        List<Tuple2<Long, Produit>> batch,
+        BulkWriteResult result,
+        List<BulkWriteError> errors,
+        boolean ordered
+    ) {
+        Set<Integer> upserted = result.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+        Map<Integer, String> failed = errors.stream().collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage));
+        int firstFailure = failed.keySet().stream().mapToInt(Integer::intValue).min().orElse(Integer.MAX_VALUE);
+        List<ProduitBulkResultDTO> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            long index = batch.get(i).getT1();
+            String id = batch.get(i).getT2().getId();
+            if (failed.containsKey(i)) {
+                results.add(ProduitBulkResultDTO.failed(index, id, failed.get(i)));
+            } else if (ordered && i > firstFailure) {
+                results.add(ProduitBulkResultDTO.failed(index, id, NOT_WRITTEN));
+            } else if (upserted.contains(i)) {
+                results.add(ProduitBulkResultDTO.created(index, id));
+            } else {
+                results.add(ProduitBulkResultDTO.updated(index, id));
+            }
+        }
+        return results;
     }
 
     @Override
     public Mono<Produit> update(Produit produit) {
         log.debug("Request to update Produit : {}", produit);
-        return produitRepository.save(produit);
+        if (produit.getVersion() != null) {
+            // Fails with an OptimisticLockingFailureException if the produit was written since the client read it
+            return produitRepository.save(produit).doOnNext(this::written);
+        }
+        // Clients unaware of versions overwrite the produit, whatever its version
+        return produitRepository.overwrite(produit).doOnNext(this::written);
     }
 
     @Override
@@ -41,42 +280,410 @@ public class ProduitServiceImpl implements ProduitService {
         log.debug("Request to partially update Produit : {}", produit);
 
         return produitRepository
-            .findById(produit.getId())
-            .map(existingProduit -> {
-                if (produit.getDescription() != null) {
-                    existingProduit.setDescription(produit.getDescription());
-                }
-                if (produit.getNom() != null) {
-                    existingProduit.setNom(produit.getNom());
-                }
-                if (produit.getPrix() != null) {
-                    existingProduit.setPrix(produit.getPrix());
-                }
+            .updateNonNullFields(produit)
+            .switchIfEmpty(
+                Mono.defer(() ->
+                    produit.getVersion() == null
+                        ? Mono.empty()
+                        : produitRepository
+                            .existsById(produit.getId())
+                            .flatMap(exists ->
+                                exists
+                                    ? Mono.error(
+                                        new OptimisticLockingFailureException(
+                                            "Produit " + produit.getId() + " is not at version " + produit.getVersion()
+                                        )
+                                    )
+                                    : Mono.empty()
+                            )
+                )
+            )
+            .doOnNext(this::written);
+    }
 
-                return existingProduit;
-            })
-            .flatMap(produitRepository::save);
+    @Override
+    public Mono<Produit> update(Produit produit, String ifMatch) {
+        log.debug("Request to update Produit : {} if matching : {}", produit, ifMatch);
+        return writeIfMatch(
+            produit.getId(),
+            ifMatch,
+            existingProduit -> produitRepository.save(produit.version(existingProduit.getVersion()))
+        );
+    }
+
+    @Override
+    public Mono<Produit> partialUpdate(Produit produit, String ifMatch) {
+        log.debug("Request to partially update Produit : {} if matching : {}", produit, ifMatch);
+        return writeIfMatch(
+            produit.getId(),
+            ifMatch,
+            existingProduit ->
+                produitRepository.updateNonNullFields(
+                    new Produit()
+                        .id(produit.getId())
+                        .nom(produit.getNom())
+                        .description(produit.getDescription())
+                        .prix(produit.getPrix())
+                        .version(existingProduit.getVersion())
+                )
+        );
+    }
+
+    /**
+     * Checks the {@code If-Match} header against the produit as read, then writes it only if its version did not change since.
+     */
+    private Mono<Produit> writeIfMatch(String id, String ifMatch, Function<Produit, Mono<Produit>> write) {
+        return produitRepository
+            .findById(id)
+            .filter(existingProduit -> ProduitETag.matches(ifMatch, existingProduit))
+            .switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException("Produit " + id + " does not match " + ifMatch)))
+            .flatMap(write)
+            .switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException("Produit " + id + " was modified concurrently")))
+            .doOnNext(this::written);
     }
 
     @Override
     public Flux<Produit> findAll(Pageable pageable) {
         log.debug("Request to get all Produits");
+        if (produitReplica.canRead(pageable)) {
+            return produitReplica.findAll(pageable);
+        }
         return produitRepository.findAllBy(pageable);
     }
 
+    @Override
+    public Flux<Produit> findByCriteria(ProduitCriteria criteria, Pageable pageable) {
+        log.debug("Request to get all Produits by criteria : {}", criteria);
+        if (criteria.isEmpty() && produitReplica.canRead(pageable)) {
+            return produitReplica.findAll(pageable);
+        }
+        return readPage(criteria, pageable, null, () ->
+            criteria.isEmpty() ? produitRepository.findAllBy(pageable) : produitRepository.findByCriteria(criteria, pageable, null)
+        );
+    }
+
+    @Override
+    public Flux<Produit> findByCriteria(ProduitCriteria criteria, Pageable pageable, Set<String> fields) {
+        log.debug("Request to get all Produits by criteria : {} with fields : {}", criteria, fields);
+        return readPage(criteria, pageable, fields, () -> produitRepository.findByCriteria(criteria, pageable, fields));
+    }
+
+    @Override
+    public Flux<Produit> streamByCriteria(ProduitCriteria criteria, Pageable pageable) {
+        log.debug("Request to stream Produits by criteria : {}", criteria);
+        return criteria.isEmpty() ? produitRepository.findAllBy(pageable) : produitRepository.findByCriteria(criteria, pageable, null);
+    }
+
+    /**
+     * Reads a page, sharing it with the identical reads in flight. Unpaged reads are streamed without being shared.
+     */
+    private Flux<Produit> readPage(ProduitCriteria criteria, Pageable pageable, Set<String> fields, Supplier<Flux<Produit>> read) {
+        if (pageable.isUnpaged()) {
+            return read.get();
+        }
+        return pageReads
+            .execute(new PageKey(criteria.copy(), pageable, fields != null ? Set.copyOf(fields) : null), () -> read.get().collectList())
+            .flatMapIterable(Function.identity());
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(ProduitCriteria criteria) {
+        log.debug("Request to count Produits by criteria : {}", criteria);
+        return countReads.execute(criteria.copy(), () ->
+            criteria.isEmpty() ? produitRepository.count() : produitRepository.countByCriteria(criteria)
+        );
+    }
+
+    @Override
+    public Mono<ProduitTotalCountDTO> countTotal(ProduitCriteria criteria) {
+        log.debug("Request to count the total of Produits by criteria : {}", criteria);
+        ApplicationProperties.Produit.Count count = applicationProperties.getProduit().getCount();
+        if (count.getMode() == ApplicationProperties.Produit.Count.Mode.NONE) {
+            return Mono.empty();
+        }
+        if (!criteria.isEmpty()) {
+            // Count one more than the limit to tell an exact count from a truncated one
+            return produitRepository
+                .countByCriteria(criteria, count.getLimit() + 1)
+                .map(total ->
+                    total > count.getLimit()
+                        ? new ProduitTotalCountDTO(count.getLimit(), Accuracy.LOWER_BOUND)
+                        : new ProduitTotalCountDTO(total, Accuracy.EXACT)
+                );
+        }
+        return switch (count.getMode()) {
+            case ESTIMATED -> produitRepository.estimatedCount().map(total -> new ProduitTotalCountDTO(total, Accuracy.ESTIMATED));
+            case CACHED -> cachedCount.get().map(total -> new ProduitTotalCountDTO(total, Accuracy.CACHED));
+            default -> produitRepository.count().map(total -> new ProduitTotalCountDTO(total, Accuracy.EXACT));
+        };
+    }
+
+    @Override
+    public Mono<StaleWhileRevalidate.Result<ProduitPageDTO>> findPage(ProduitCriteria criteria, Pageable pageable, Set<String> fields) {
+        log.debug("Request to get a page of Produits by criteria : {}", criteria);
+        Supplier<Mono<ProduitPageDTO>> read = () -> {
+            Flux<Produit> produits = fields == null ? findByCriteria(criteria, pageable) : findByCriteria(criteria, pageable, fields);
+            return countTotal(criteria)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .zipWith(produits.collectList())
+                .map(countWithEntities -> new ProduitPageDTO(countWithEntities.getT2(), countWithEntities.getT1().orElse(null)));
+        };
+        if (stalePages == null) {
+            return read.get().map(page -> new StaleWhileRevalidate.Result<>(page, null));
+        }
+        return stalePages.execute(new PageKey(criteria.copy(), pageable, fields != null ? Set.copyOf(fields) : null), read);
+    }
+
+    private void resetCachedCount() {
+        Duration timeToLive = applicationProperties.getProduit().getCount().getTimeToLive();
+        cachedCount.set(Mono.defer(produitRepository::count).cache(total -> timeToLive, e -> Duration.ZERO, () -> Duration.ZERO));
+    }
+
+    @Override
+    public Flux<Produit> findAllAfter(ProduitCriteria criteria, ProduitCursor cursor, int size) {
+        log.debug("Request to get Produits by criteria : {} after : {}", criteria, cursor);
+        return findAllAfter(criteria, cursor, size, null);
+    }
+
+    @Override
+    public Flux<Produit> findAllAfter(ProduitCriteria criteria, ProduitCursor cursor, int size, Set<String> fields) {
+        log.debug("Request to get Produits by criteria : {} after : {} with fields : {}", criteria, cursor, fields);
+        return produitRepository.findAllAfter(criteria, cursor.getOrder(), cursor.getLastValue(), cursor.getLastId(), size, fields);
+    }
+
     public Mono<Long> countAll() {
         return produitRepository.count();
     }
 
+    @Override
+    public List<Produit> search(String query, int size) {
+        log.debug("Request to search Produits : {}", query);
+        return produitSearchIndex.search(query, size);
+    }
+
+    @Override
+    public ProduitPriceStatsDTO getPriceStatistics() {
+        log.debug("Request to get the price statistics of Produits");
+        return produitPriceStatistics.get();
+    }
+
+    @Override
+    public Flux<ProduitChangeDTO> watchChanges(String resumeToken) {
+        log.debug("Request to watch Produit changes after : {}", resumeToken);
+        if (resumeToken != null && !RESUME_TOKEN.matcher(resumeToken).matches()) {
+            return Flux.error(new IllegalArgumentException("Invalid resume token"));
+        }
+        BsonValue resumeAfter = resumeToken == null ? null : new BsonDocument(RESUME_TOKEN_DATA, new BsonString(resumeToken));
+        return produitRepository.watch(resumeAfter).map(ProduitServiceImpl::toChange);
+    }
+
+    private static ProduitChangeDTO toChange(ChangeStreamEvent<Produit> event) {
+        ProduitChangeDTO.Operation operation =
+            switch (event.getOperationType()) {
+                case INSERT -> ProduitChangeDTO.Operation.INSERT;
+                case DELETE -> ProduitChangeDTO.Operation.DELETE;
+                default -> ProduitChangeDTO.Operation.UPDATE;
+            };
+        BsonValue id = event.getRaw().getDocumentKey().get("_id");
+        return new ProduitChangeDTO(
+            operation,
+            id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue(),
+            event.getBody(),
+            event.getResumeToken().asDocument().getString(RESUME_TOKEN_DATA).getValue()
+        );
+    }
+
     @Override
     public Mono<Produit> findOne(String id) {
         log.debug("Request to get Produit : {}", id);
-        return produitRepository.findById(id);
+        if (produitReplica.isServing()) {
+            return produitReplica.findOne(id);
+        }
+        // Concurrent reads of a missing id share the same Mongo query, even across an invalidation of the cache, and concurrent
+        // reads of different ids are read together; a produit that does not exist is not cached
+        return Mono.fromFuture(
+            () -> produitCache.get(id, (key, executor) -> produitReads.execute(key, () -> produitLoader.load(key)).toFuture()),
+            true
+        );
+    }
+
+    @Override
+    public Mono<Produit> findOne(String id, Set<String> fields) {
+        log.debug("Request to get Produit : {} with fields : {}", id, fields);
+        if (produitReplica.isServing()) {
+            return produitReplica.findOne(id);
+        }
+        // A cached produit already holds every field, otherwise the projection is read without filling the cache
+        CompletableFuture<Produit> cached = produitCache.getIfPresent(id);
+        return cached != null ? Mono.fromFuture(cached, true) : produitRepository.findById(id, fields);
+    }
+
+    @Override
+    public Mono<ProduitBatchDTO> findAllById(List<String> ids) {
+        log.debug("Request to get Produits : {}", ids);
+        List<String> distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        // The ids missing from the cache are read together, and only the produits found are cached
+        return Mono
+            .fromFuture(
+                () ->
+                    produitCache.getAll(
+                        distinctIds,
+                        (missing, executor) -> produitRepository.findAllById(List.copyOf(missing)).collectMap(Produit::getId).toFuture()
+                    ),
+                true
+            )
+            .map(found ->
+                new ProduitBatchDTO(
+                    distinctIds.stream().filter(found::containsKey).map(found::get).toList(),
+                    distinctIds.stream().filter(id -> !found.containsKey(id)).toList()
+                )
+            );
     }
 
     @Override
     public Mono<Void> delete(String id) {
         log.debug("Request to delete Produit : {}", id);
-        return produitRepository.deleteById(id);
+        return produitRepository.deleteById(id).doOnSuccess(deleted -> deleted(id));
+    }
+
+    @Override
+    public Mono<Long> deleteAll(List<String> ids) {
+        log.debug("Request to delete {} Produits by id", ids.size());
+        return Flux
+            .fromIterable(ids)
+            .buffer(applicationProperties.getProduit().getBulk().getBatchSize())
+            .concatMap(batch -> produitRepository.deleteAllByIdIn(batch).doOnNext(deleted -> batch.forEach(this::deleted)))
+            .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public Mono<Long> deleteAll(ProduitCriteria criteria) {
+        log.debug("Request to delete Produits by criteria : {}", criteria);
+        if (criteria.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Deleting produits requires at least one filter"));
+        }
+        int batchSize = applicationProperties.getProduit().getBulk().getBatchSize();
+        // Delete by bounded batches of ids so that a wide filter never turns into one long running deleteMany
+        return deleteBatch(criteria, batchSize)
+            .expand(batch -> batch.getT1() < batchSize ? Mono.empty() : deleteBatch(criteria, batchSize))
+            .map(Tuple2::getT2)
+            .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public Mono<Long> adjustPrix(ProduitPriceAdjustmentDTO adjustment) {
+        log.debug("Request to adjust the prix of Produits : {}", adjustment);
+        if (adjustment.getFilter() == null || adjustment.getFilter().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Adjusting prices requires at least one filter"));
+        }
+        if ((adjustment.getPercent() == null) == (adjustment.getAmount() == null)) {
+            return Mono.error(new IllegalArgumentException("Adjusting prices requires either a percentage or an amount"));
+        }
+        double factor = adjustment.getPercent() != null ? 1 + adjustment.getPercent() / 100 : 1;
+        double increment = adjustment.getAmount() != null ? adjustment.getAmount() : 0;
+        int batchSize = applicationProperties.getProduit().getBulk().getBatchSize();
+        // Update by bounded batches of ids, re-read so that the new prices are served once the adjustment is acknowledged
+        return adjustBatch(adjustment, factor, increment, null, batchSize)
+            .expand(batch ->
+                batch.getT1().size() < batchSize
+                    ? Mono.empty()
+                    : adjustBatch(adjustment, factor, increment, batch.getT1().get(batch.getT1().size() - 1), batchSize)
+            )
+            .map(Tuple2::getT2)
+            .reduce(0L, Long::sum);
+    }
+
+    /**
+     * @return the ids of the produits found after the given id, and the number of them whose prices were modified.
+     */
+    private Mono<Tuple2<List<String>, Long>> adjustBatch(
+        ProduitPriceAdjustmentDTO adjustment,
+        double factor,
+        double increment,
+        String afterId,
+        int batchSize
+    ) {
+        return produitRepository
+            .findIdsByCriteria(adjustment.getFilter(), afterId, batchSize)
+            .collectList()
+            .flatMap(ids ->
+                ids.isEmpty()
+                    ? Mono.just(Tuples.of(ids, 0L))
+                    : produitRepository
+                        .adjustPrix(adjustment.getFilter(), ids, factor, increment, adjustment.getScale())
+                        .flatMap(modified ->
+                            modified == 0
+                                ? Mono.just(Tuples.of(ids, modified))
+                                : produitRepository.findAllById(ids).doOnNext(this::written).then(Mono.just(Tuples.of(ids, modified)))
+                        )
+            );
+    }
+
+    /**
+     * @return the number of produits found then deleted.
+     */
+    private Mono<Tuple2<Integer, Long>> deleteBatch(ProduitCriteria criteria, int batchSize) {
+        return produitRepository
+            .findIdsByCriteria(criteria, batchSize)
+            .collectList()
+            .flatMap(ids ->
+                ids.isEmpty()
+                    ? Mono.just(Tuples.of(0, 0L))
+                    : produitRepository
+                        .deleteAllByIdIn(ids)
+                        .doOnNext(deleted -> ids.forEach(this::deleted))
+                        .map(deleted -> Tuples.of(ids.size(), deleted))
+            );
     }
+
+    /**
+     * Keeps the search index, the price statistics, the replica and the cache in line with a produit just written to the database.
+     */
+    private void written(Produit produit) {
+        produitSearchIndex.index(produit);
+        produitPriceStatistics.put(produit);
+        produitReplica.put(produit);
+        produitCache.synchronous().invalidate(produit.getId());
+        forgetReads(produit.getId());
+        resetCachedCount();
+    }
+
+    /**
+     * Drops a produit written to the database but not read back from the in-memory structures, until they are reloaded.
+     */
+    private void evicted(String id) {
+        produitSearchIndex.remove(id);
+        produitReplica.remove(id);
+        produitCache.synchronous().invalidate(id);
+        forgetReads(id);
+        resetCachedCount();
+    }
+
+    private void deleted(String id) {
+        produitSearchIndex.remove(id);
+        produitPriceStatistics.remove(id);
+        produitReplica.remove(id);
+        produitCache.synchronous().invalidate(id);
+        forgetReads(id);
+        resetCachedCount();
+    }
+
+    /**
+     * Stops sharing the reads in flight which may miss a write, and drops the last pages kept, so that the reads made after it
+     * see it.
+     */
+    private void forgetReads(String id) {
+        produitReads.forget(id);
+        pageReads.forgetAll();
+        countReads.forgetAll();
+        if (stalePages != null) {
+            stalePages.forgetAll();
+        }
+    }
+
+    /**
+     * Identifies identical page reads.
+     */
+    private record PageKey(ProduitCriteria criteria, Pageable pageable, Set<String> fields) {}
 }
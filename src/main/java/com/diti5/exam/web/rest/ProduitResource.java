@@ -1,29 +1,64 @@
 package com.diti5.exam.web.rest;
 
+import com.diti5.exam.config.ApplicationProperties;
 import com.diti5.exam.domain.Produit;
-import com.diti5.exam.repository.ProduitRepository;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import com.diti5.exam.service.IdempotencyKeyInProgressException;
+import com.diti5.exam.service.IdempotencyKeyReusedException;
+import com.diti5.exam.service.ProduitETag;
+import com.diti5.exam.service.ProduitExporter;
+import com.diti5.exam.service.ProduitFeedFormat;
+import com.diti5.exam.service.ProduitIdempotency;
+import com.diti5.exam.service.ProduitImporter;
 import com.diti5.exam.service.ProduitService;
+import com.diti5.exam.service.dto.ProduitBatchDTO;
+import com.diti5.exam.service.dto.ProduitBulkDeleteDTO;
+import com.diti5.exam.service.dto.ProduitBulkResultDTO;
+import com.diti5.exam.service.dto.ProduitChangeDTO;
+import com.diti5.exam.service.dto.ProduitCursor;
+import com.diti5.exam.service.dto.ProduitImportProgressDTO;
+import com.diti5.exam.service.dto.ProduitPageDTO;
+import com.diti5.exam.service.dto.ProduitPriceAdjustmentDTO;
+import com.diti5.exam.service.dto.ProduitPriceStatsDTO;
+import com.diti5.exam.service.dto.ProduitTotalCountDTO;
 import com.diti5.exam.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.ForwardedHeaderUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link com.diti5.exam.domain.Produit}.
@@ -36,58 +71,229 @@ public class ProduitResource {
 
     private static final String ENTITY_NAME = "produit";
 
+    private static final List<String> ALLOWED_ORDERED_PROPERTIES = Collections.unmodifiableList(Arrays.asList("id", "nom", "prix"));
+
+    private static final List<String> ALLOWED_FIELDS = Collections.unmodifiableList(
+        Arrays.asList("id", "nom", "description", "prix", "version")
+    );
+
+    private static final int MAX_SEARCH_SIZE = 50;
+
+    private static final String GZIP = "gzip";
+
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final String X_TOTAL_COUNT_ACCURACY = "X-Total-Count-Accuracy";
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final Duration CHANGES_HEARTBEAT = Duration.ofSeconds(15);
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private static final int MAX_PRIX_SCALE = 10;
+
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final ProduitService produitService;
 
-    private final ProduitRepository produitRepository;
+    private final ApplicationProperties applicationProperties;
 
-    public ProduitResource(ProduitService produitService, ProduitRepository produitRepository) {
+    private final ProduitImporter produitImporter;
+
+    private final ProduitExporter produitExporter;
+
+    private final ProduitIdempotency produitIdempotency;
+
+    public ProduitResource(
+        ProduitService produitService,
+        ApplicationProperties applicationProperties,
+        ProduitImporter produitImporter,
+        ProduitExporter produitExporter,
+        ProduitIdempotency produitIdempotency
+    ) {
         this.produitService = produitService;
-        this.produitRepository = produitRepository;
+        this.applicationProperties = applicationProperties;
+        this.produitImporter = produitImporter;
+        this.produitExporter = produitExporter;
+        this.produitIdempotency = produitIdempotency;
     }
 
     /**
      * {@code POST  /produits} : Create a new produit.
      *
+     * <p>
+     * With an {@code Idempotency-Key} header, the same request sent again with the same key, until the key expires, gets the
+     * response of the first one with an {@code Idempotent-Replayed} header, and does not create another produit.
+     *
      * @param produit the produit to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new produit, or with status {@code 400 (Bad Request)} if the produit has already an ID.
+     * @param idempotencyKey the key identifying retries of the same request, optional.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new produit,
+     * or with status {@code 400 (Bad Request)} if the produit has already an ID,
+     * or with status {@code 409 (Conflict)} if a request with the same key is in progress,
+     * or with status {@code 422 (Unprocessable Entity)} if the key was used for another request.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("")
-    public Mono<ResponseEntity<Produit>> createProduit(@RequestBody Produit produit) throws URISyntaxException {
+    public Mono<ResponseEntity<Produit>> createProduit(
+        @RequestBody Produit produit,
+        @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
+    ) throws URISyntaxException {
         log.debug("REST request to save Produit : {}", produit);
         if (produit.getId() != null) {
             throw new BadRequestAlertException("A new produit cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        return produitService
-            .save(produit)
-            .map(result -> {
-                try {
-                    return ResponseEntity
-                        .created(new URI("/api/produits/" + result.getId()))
-                        .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId()))
-                        .body(result);
-                } catch (URISyntaxException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+        if (idempotencyKey == null) {
+            return produitService.save(produit).map(result -> createdResponse(result, false));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new BadRequestAlertException("Invalid idempotency key", ENTITY_NAME, "idempotencykeyinvalid");
+        }
+        return produitIdempotency
+            .create(idempotencyKey, produit, () -> produitService.save(produit))
+            .map(outcome -> createdResponse(outcome.produit(), outcome.replayed()))
+            .onErrorMap(
+                IdempotencyKeyReusedException.class,
+                e -> new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage())
+            )
+            .onErrorMap(IdempotencyKeyInProgressException.class, e -> new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage()));
+    }
+
+    private ResponseEntity<Produit> createdResponse(Produit result, boolean replayed) {
+        try {
+            ResponseEntity.BodyBuilder response = ResponseEntity
+                .created(new URI("/api/produits/" + result.getId()))
+                .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId()));
+            if (replayed) {
+                response.header(IDEMPOTENT_REPLAYED, "true");
+            }
+            return response.body(result);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * {@code POST  /produits/bulk} : Create or replace many produits.
+     * <p>
+     * The produits are read as a JSON array or as newline delimited JSON, and written in batches with Mongo bulk writes.
+     * Produits without id are created, the others replace (or create) the produit with the same id.
+     *
+     * @param produits the produits to write.
+     * @param ordered whether to stop at the first failure; defaults to {@code application.produit.bulk.ordered}.
+     * @return the outcome of each produit, in the order they were received.
+     */
+    @PostMapping(
+        value = "/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE }
+    )
+    public Flux<ProduitBulkResultDTO> bulkSaveProduits(
+        @RequestBody Flux<Produit> produits,
+        @RequestParam(value = "ordered", required = false) Boolean ordered
+    ) {
+        log.debug("REST request to bulk save Produits");
+        return produitService.saveAll(produits, ordered != null ? ordered : applicationProperties.getProduit().getBulk().isOrdered());
+    }
+
+    /**
+     * {@code POST  /produits/import} : Import a feed of produits, streamed as CSV or newline delimited JSON.
+     * <p>
+     * The feed is parsed and written batch by batch while it is uploaded, see {@link ProduitImporter}. A progress report is
+     * streamed back after each batch, with the rows that could not be imported.
+     *
+     * @param lines the lines of the feed.
+     * @param request a {@link ServerHttpRequest} request, whose content type gives the format of the feed.
+     * @return the progress of the import, as newline delimited JSON,
+     * or with status {@code 400 (Bad Request)} if the header of a CSV feed is not valid.
+     */
+    @PostMapping(
+        value = "/import",
+        consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public Flux<ProduitImportProgressDTO> importProduits(@RequestBody Flux<String> lines, ServerHttpRequest request) {
+        log.debug("REST request to import Produits");
+        ProduitFeedFormat format = MediaType
+                .parseMediaType(ProduitFeedFormat.CSV.getContentType())
+                .isCompatibleWith(request.getHeaders().getContentType())
+            ? ProduitFeedFormat.CSV
+            : ProduitFeedFormat.JSON_LINES;
+        return produitImporter
+            .importFeed(lines, format)
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "importinvalid"));
+    }
+
+    /**
+     * {@code GET  /produits/export} : Export all the produits, streamed as CSV or newline delimited JSON.
+     * <p>
+     * The export is read from a single Mongo cursor and written batch by batch, see {@link ProduitExporter}. It is compressed
+     * with gzip when the {@code Accept-Encoding} header allows it.
+     *
+     * @param format the format of the export: {@code csv} or {@code jsonl}, the default.
+     * @param acceptEncoding the encodings accepted by the client, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the produits in body,
+     * or with status {@code 400 (Bad Request)} if the format is unknown.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> exportProduits(
+        @RequestParam(value = "format", defaultValue = "jsonl") String format,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        log.debug("REST request to export Produits as {}", format);
+        ProduitFeedFormat feedFormat = ProduitFeedFormat
+            .fromName(format)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid format", ENTITY_NAME, "formatinvalid"));
+        boolean gzip = acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(feedFormat.getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename("produits." + feedFormat.getName()).build());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return ResponseEntity.ok().headers(headers).body(produitExporter.export(feedFormat, gzip));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if (GZIP.equalsIgnoreCase(name) || "*".equals(name)) {
+                // A zero quality value excludes the coding
+                return Arrays.stream(parameters).skip(1).map(String::trim).noneMatch(parameter -> parameter.matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
     }
 
     /**
      * {@code PUT  /produits/:id} : Updates an existing produit.
      *
      * @param id the id of the produit to save.
+     * @param ifMatch the entity tags the produit must match to be updated, if any.
      * @param produit the produit to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated produit,
      * or with status {@code 400 (Bad Request)} if the produit is not valid,
+     * or with status {@code 404 (Not Found)} if the produit is not found,
+     * or with status {@code 412 (Precondition Failed)} if the produit does not match the {@code If-Match} header,
      * or with status {@code 500 (Internal Server Error)} if the produit couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/{id}")
     public Mono<ResponseEntity<Produit>> updateProduit(
         @PathVariable(value = "id", required = false) final String id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody Produit produit
     ) throws URISyntaxException {
         log.debug("REST request to update Produit : {}, {}", id, produit);
@@ -97,40 +303,48 @@ public class ProduitResource {
         if (!Objects.equals(id, produit.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (ifMatch != null) {
+            return toUpdateResponse(
+                produitService.update(produit, ifMatch).onErrorMap(OptimisticLockingFailureException.class, this::preconditionFailed)
+            );
+        }
 
-        return produitRepository
-            .existsById(id)
-            .flatMap(exists -> {
-                if (!exists) {
-                    return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                }
+        return toUpdateResponse(produitService.update(produit));
+    }
 
-                return produitService
-                    .update(produit)
-                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                    .map(result ->
-                        ResponseEntity
-                            .ok()
-                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId()))
-                            .body(result)
-                    );
-            });
+    private Mono<ResponseEntity<Produit>> toUpdateResponse(Mono<Produit> result) {
+        return result
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(res ->
+                ResponseEntity
+                    .ok()
+                    .eTag(ProduitETag.of(res))
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId()))
+                    .body(res)
+            );
+    }
+
+    private ResponseStatusException preconditionFailed(OptimisticLockingFailureException e) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage(), e);
     }
 
     /**
      * {@code PATCH  /produits/:id} : Partial updates given fields of an existing produit, field will ignore if it is null
      *
      * @param id the id of the produit to save.
+     * @param ifMatch the entity tags the produit must match to be updated, if any.
      * @param produit the produit to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated produit,
      * or with status {@code 400 (Bad Request)} if the produit is not valid,
      * or with status {@code 404 (Not Found)} if the produit is not found,
+     * or with status {@code 412 (Precondition Failed)} if the produit does not match the {@code If-Match} header,
      * or with status {@code 500 (Internal Server Error)} if the produit couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public Mono<ResponseEntity<Produit>> partialUpdateProduit(
         @PathVariable(value = "id", required = false) final String id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody Produit produit
     ) throws URISyntaxException {
         log.debug("REST request to partial update Produit partially : {}, {}", id, produit);
@@ -140,67 +354,487 @@ public class ProduitResource {
         if (!Objects.equals(id, produit.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (ifMatch != null) {
+            return toUpdateResponse(
+                produitService.partialUpdate(produit, ifMatch).onErrorMap(OptimisticLockingFailureException.class, this::preconditionFailed)
+            );
+        }
 
-        return produitRepository
-            .existsById(id)
-            .flatMap(exists -> {
-                if (!exists) {
-                    return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                }
-
-                Mono<Produit> result = produitService.partialUpdate(produit);
-
-                return result
-                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                    .map(res ->
-                        ResponseEntity
-                            .ok()
-                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId()))
-                            .body(res)
-                    );
-            });
+        return toUpdateResponse(produitService.partialUpdate(produit));
     }
 
     /**
      * {@code GET  /produits} : get all the produits.
+     * <p>
+     * The {@code X-Total-Count} header is computed as configured by {@code application.produit.count}, and qualified by the
+     * {@code X-Total-Count-Accuracy} header: {@code exact}, {@code estimated}, {@code cached} or {@code lower-bound} when a
+     * filtered count reached its limit. When counts are disabled, both headers are omitted and the {@code Link} header only
+     * advertises the first, previous and next pages.
+     * <p>
+     * The {@code ETag} of the page covers its produits and total, so that an unchanged page is answered with a
+     * {@code 304 (Not Modified)} to a request with a matching {@code If-None-Match} header.
+     * <p>
+     * When the {@code after} parameter is present, even empty, the produits are paginated with a keyset cursor instead of
+     * page numbers: no total count is computed and the next page is advertised in a {@code Link} header with {@code rel="next"}.
+     * <p>
+     * When Mongo does not answer within {@code application.produit.listing.latency-budget}, or fails, the last response to the
+     * same query is served if recent enough and no produit was written since, with a {@code Warning} header and an {@code Age}
+     * header giving its age in seconds, while the page is read again in the background.
      *
-     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested produits should match.
+     * @param pageable the pagination information, sorted on {@code id}, {@code nom} or {@code prix} only.
+     * @param after the cursor returned by the previous page, or an empty value to start a cursor pagination.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of produits in body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of produits in body,
+     * or with status {@code 400 (Bad Request)} if the sort is not allowed.
      */
-    @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
     public Mono<ResponseEntity<List<Produit>>> getAllProduits(
+        ProduitCriteria criteria,
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(value = "after", required = false) String after,
         ServerHttpRequest request
     ) {
-        log.debug("REST request to get a page of Produits");
+        return getProduits(criteria, pageable, after, null, request);
+    }
+
+    /**
+     * {@code GET  /produits?fields=} : get all the produits, with only the given fields.
+     * <p>
+     * The fields are read from Mongo with a projection, so that the others are neither read nor sent. Pagination, counts and
+     * entity tags behave as in {@link #getAllProduits}.
+     *
+     * @param criteria the criteria which the requested produits should match.
+     * @param pageable the pagination information, sorted on {@code id}, {@code nom} or {@code prix} only.
+     * @param fields the comma-separated fields to return, among {@code id}, {@code nom}, {@code description}, {@code prix}
+     * and {@code version}.
+     * @param after the cursor returned by the previous page, or an empty value to start a cursor pagination.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of partial produits in body,
+     * or with status {@code 400 (Bad Request)} if the sort or a field is not allowed.
+     */
+    @GetMapping(
+        value = "",
+        produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        params = { "fields", "!ids" }
+    )
+    public Mono<ResponseEntity<List<Map<String, Object>>>> getAllProduitFields(
+        ProduitCriteria criteria,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam("fields") String fields,
+        @RequestParam(value = "after", required = false) String after,
+        ServerHttpRequest request
+    ) {
+        Set<String> fieldSet = parseFields(fields);
+        return getProduits(criteria, pageable, after, fieldSet, request).map(response ->
+            ResponseEntity
+                .status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .body(response.getBody().stream().map(produit -> toFields(produit, fieldSet)).toList())
+        );
+    }
+
+    /**
+     * {@code GET  /produits?ids=} : get the produits with the given ids.
+     * <p>
+     * The produits which are not cached are read with a single {@code $in} query. Other parameters, such as criteria or
+     * pagination, are ignored.
+     *
+     * @param ids the comma-separated ids of the produits, at most {@code application.produit.bulk.max-ids}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and in body the produits found, in the order of the ids,
+     * and the ids not found, or with status {@code 400 (Bad Request)} if there are no ids or too many.
+     */
+    @GetMapping(
+        value = "",
+        produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        params = "ids"
+    )
+    public Mono<ResponseEntity<ProduitBatchDTO>> getProduitsByIds(@RequestParam("ids") List<String> ids) {
+        log.debug("REST request to get Produits by ids : {}", ids);
+        return produitService.findAllById(checkIds(ids)).map(ResponseEntity::ok);
+    }
+
+    /**
+     * {@code POST  /produits/by-ids} : get the produits with the given ids, for lists of ids too long for a query string.
+     *
+     * @param ids the ids of the produits, at most {@code application.produit.bulk.max-ids}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and in body the produits found, in the order of the ids,
+     * and the ids not found, or with status {@code 400 (Bad Request)} if there are no ids or too many.
+     */
+    @PostMapping(
+        value = "/by-ids",
+        produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE }
+    )
+    public Mono<ResponseEntity<ProduitBatchDTO>> postProduitsByIds(@RequestBody List<String> ids) {
+        log.debug("REST request to get Produits by {} ids", ids.size());
+        return produitService.findAllById(checkIds(ids)).map(ResponseEntity::ok);
+    }
+
+    private List<String> checkIds(List<String> ids) {
+        List<String> checked = ids.stream().filter(id -> id != null && !id.isBlank()).map(String::trim).toList();
+        int maxIds = applicationProperties.getProduit().getBulk().getMaxIds();
+        if (checked.isEmpty() || checked.size() > maxIds) {
+            throw new BadRequestAlertException("Between 1 and " + maxIds + " ids are required", ENTITY_NAME, "idsinvalid");
+        }
+        return checked;
+    }
+
+    private Mono<ResponseEntity<List<Produit>>> getProduits(
+        ProduitCriteria criteria,
+        Pageable pageable,
+        String after,
+        Set<String> fields,
+        ServerHttpRequest request
+    ) {
+        checkAllowedProperties(pageable);
+        if (after != null) {
+            return getProduitsAfter(criteria, after, pageable, fields, request);
+        }
+        log.debug("REST request to get a page of Produits by criteria: {}", criteria);
         return produitService
-            .countAll()
-            .zipWith(produitService.findAll(pageable).collectList())
-            .map(countWithEntities ->
-                ResponseEntity
+            .findPage(criteria, pageable, fields)
+            .map(result -> {
+                ProduitPageDTO page = result.value();
+                Optional<ProduitTotalCountDTO> total = Optional.ofNullable(page.getTotal());
+                ResponseEntity.BodyBuilder response = ResponseEntity
                     .ok()
-                    .headers(
-                        PaginationUtil.generatePaginationHttpHeaders(
-                            ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
-                            new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                        )
-                    )
-                    .body(countWithEntities.getT2())
+                    .eTag(ProduitETag.of(page.getProduits(), total.map(ProduitTotalCountDTO::getCount).orElse(null)))
+                    .headers(paginationHeaders(request, pageable, page.getProduits(), total));
+                if (result.isStale()) {
+                    response
+                        .header(HttpHeaders.WARNING, STALE_WARNING)
+                        .header(HttpHeaders.AGE, String.valueOf(result.age().toSeconds()));
+                }
+                return response.body(page.getProduits());
+            });
+    }
+
+    private HttpHeaders paginationHeaders(
+        ServerHttpRequest request,
+        Pageable pageable,
+        List<Produit> produits,
+        Optional<ProduitTotalCountDTO> total
+    ) {
+        UriComponentsBuilder uriBuilder = ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders());
+        if (total.isPresent()) {
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(
+                uriBuilder,
+                new PageImpl<>(produits, pageable, total.orElseThrow().getCount())
             );
+            headers.add(X_TOTAL_COUNT_ACCURACY, total.orElseThrow().getAccuracy().name().toLowerCase(Locale.ROOT).replace('_', '-'));
+            return headers;
+        }
+        // Without total, a full page is assumed to be followed by another one
+        List<String> links = new ArrayList<>();
+        if (produits.size() == pageable.getPageSize()) {
+            links.add(pageLink(uriBuilder, pageable.getPageNumber() + 1, pageable.getPageSize(), "next"));
+        }
+        if (pageable.getPageNumber() > 0) {
+            links.add(pageLink(uriBuilder, pageable.getPageNumber() - 1, pageable.getPageSize(), "prev"));
+        }
+        links.add(pageLink(uriBuilder, 0, pageable.getPageSize(), "first"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, String.join(",", links));
+        return headers;
+    }
+
+    private String pageLink(UriComponentsBuilder uriBuilder, int page, int size, String rel) {
+        return (
+            "<" +
+            uriBuilder.cloneBuilder().replaceQueryParam("page", page).replaceQueryParam("size", size).toUriString() +
+            ">; rel=\"" +
+            rel +
+            "\""
+        );
+    }
+
+    /**
+     * {@code GET  /produits} : stream a page of produits as newline delimited JSON.
+     * <p>
+     * Produits are written as they are read from the database, without waiting for the whole page nor for the total count,
+     * which is available from {@code GET /produits/count}.
+     *
+     * @param criteria the criteria which the requested produits should match.
+     * @param pageable the pagination information, sorted on {@code id}, {@code nom} or {@code prix} only.
+     * @return the {@link Flux} of produits.
+     */
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Produit> streamAllProduits(ProduitCriteria criteria, @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to stream a page of Produits by criteria: {}", criteria);
+        checkAllowedProperties(pageable);
+        return produitService.streamByCriteria(criteria, pageable);
+    }
+
+    /**
+     * {@code GET  /produits} : stream a page of produits as server-sent events.
+     * <p>
+     * Each produit is sent as a {@code produit} event. When {@code count} is requested, a final {@code count} event carries the
+     * total number of produits once the page has been streamed.
+     *
+     * @param criteria the criteria which the requested produits should match.
+     * @param pageable the pagination information, sorted on {@code id}, {@code nom} or {@code prix} only.
+     * @param count whether to send the total number of produits after the page.
+     * @return the {@link Flux} of events.
+     */
+    @GetMapping(value = "", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamAllProduitEvents(
+        ProduitCriteria criteria,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(value = "count", defaultValue = "false") boolean count
+    ) {
+        log.debug("REST request to stream a page of Produits as events by criteria: {}", criteria);
+        checkAllowedProperties(pageable);
+        Flux<ServerSentEvent<Object>> produits = produitService
+            .streamByCriteria(criteria, pageable)
+            .map(produit -> ServerSentEvent.builder((Object) produit).id(produit.getId()).event("produit").build());
+        if (!count) {
+            return produits;
+        }
+        return produits.concatWith(
+            produitService.countByCriteria(criteria).map(total -> ServerSentEvent.builder((Object) total).event("count").build())
+        );
+    }
+
+    /**
+     * {@code GET  /produits/count} : count all the produits.
+     *
+     * @param criteria the criteria which the requested produits should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/count")
+    public Mono<ResponseEntity<Long>> countProduits(ProduitCriteria criteria) {
+        log.debug("REST request to count Produits by criteria: {}", criteria);
+        return produitService.countByCriteria(criteria).map(count -> ResponseEntity.status(HttpStatus.OK).body(count));
+    }
+
+    /**
+     * {@code GET  /produits/changes} : stream the changes of the produits as server-sent events.
+     * <p>
+     * Each event is named after its operation ({@code insert}, {@code update} or {@code delete}), and its id is the resume
+     * token of the underlying Mongo change stream: reconnecting with the {@code Last-Event-ID} header, as browsers do, or
+     * the {@code resumeAfter} parameter receives the changes missed since that event. A comment is sent every
+     * {@code 15} seconds to keep the connection open through proxies.
+     *
+     * @param lastEventId the id of the last event received, sent by the clients reconnecting.
+     * @param resumeAfter the id of the last event received, for the clients that cannot set headers.
+     * @return the {@link Flux} of changes, or with status {@code 400 (Bad Request)} if the event id is malformed.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ProduitChangeDTO>> streamProduitChanges(
+        @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId,
+        @RequestParam(value = "resumeAfter", required = false) String resumeAfter
+    ) {
+        log.debug("REST request to stream Produit changes after : {}", lastEventId != null ? lastEventId : resumeAfter);
+        Flux<ServerSentEvent<ProduitChangeDTO>> changes = produitService
+            .watchChanges(lastEventId != null ? lastEventId : resumeAfter)
+            .onErrorMap(
+                IllegalArgumentException.class,
+                e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "resumetokeninvalid")
+            )
+            .map(change ->
+                ServerSentEvent
+                    .builder(change)
+                    .id(change.getResumeToken())
+                    .event(change.getOperation().name().toLowerCase(Locale.ROOT))
+                    .build()
+            );
+        // The first comment also sends the response headers right away
+        Flux<ServerSentEvent<ProduitChangeDTO>> heartbeats = Flux
+            .interval(Duration.ZERO, CHANGES_HEARTBEAT)
+            .map(tick -> ServerSentEvent.<ProduitChangeDTO>builder().comment("heartbeat").build());
+        return Flux.merge(changes, heartbeats);
+    }
+
+    /**
+     * {@code GET  /produits/_search?q=:query} : search the produits as the user types.
+     * <p>
+     * Answered from the in-memory search index: unfinished words and typos still match.
+     *
+     * @param query the words to search in the nom and description.
+     * @param size the maximum number of produits to return, at most {@value #MAX_SEARCH_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the best matching produits, best first.
+     */
+    @GetMapping("/_search")
+    public Mono<ResponseEntity<List<Produit>>> searchProduits(
+        @RequestParam("q") String query,
+        @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        log.debug("REST request to search Produits : {}", query);
+        if (size < 1 || size > MAX_SEARCH_SIZE) {
+            throw new BadRequestAlertException("Size must be between 1 and " + MAX_SEARCH_SIZE, ENTITY_NAME, "sizeinvalid");
+        }
+        return Mono.fromSupplier(() -> ResponseEntity.ok(produitService.search(query, size)));
+    }
+
+    /**
+     * {@code GET  /produits/stats} : get the statistics of the prices of the produits.
+     * <p>
+     * Answered from in-memory statistics kept up to date on every write: the count, minimum, maximum and average of the
+     * prices, their estimated percentiles and their histogram over {@code application.produit.stats.buckets}.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the statistics in body.
+     */
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<ProduitPriceStatsDTO>> getProduitPriceStatistics() {
+        log.debug("REST request to get the price statistics of Produits");
+        return Mono.fromSupplier(() -> ResponseEntity.ok(produitService.getPriceStatistics()));
+    }
+
+    private Set<String> parseFields(String fields) {
+        Set<String> fieldSet = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            if (!ALLOWED_FIELDS.contains(field.trim())) {
+                throw new BadRequestAlertException("Fields are only allowed among " + ALLOWED_FIELDS, ENTITY_NAME, "fieldsinvalid");
+            }
+            fieldSet.add(field.trim());
+        }
+        return fieldSet;
+    }
+
+    /**
+     * Keeps the id and the given fields of a produit, as read by a projection, so that its entity tag does not depend on whether
+     * it came from the cache or from Mongo.
+     */
+    private static Produit withFields(Produit produit, Set<String> fields) {
+        Produit projected = new Produit().id(produit.getId());
+        if (fields.contains("nom")) {
+            projected.setNom(produit.getNom());
+        }
+        if (fields.contains("description")) {
+            projected.setDescription(produit.getDescription());
+        }
+        if (fields.contains("prix")) {
+            projected.setPrix(produit.getPrix());
+        }
+        if (fields.contains("version")) {
+            projected.setVersion(produit.getVersion());
+        }
+        return projected;
+    }
+
+    private static Map<String, Object> toFields(Produit produit, Set<String> fields) {
+        // Only the requested fields are serialized, in a stable order
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : ALLOWED_FIELDS) {
+            if (fields.contains(field)) {
+                values.put(
+                    field,
+                    switch (field) {
+                        case "id" -> produit.getId();
+                        case "nom" -> produit.getNom();
+                        case "description" -> produit.getDescription();
+                        case "prix" -> produit.getPrix();
+                        default -> produit.getVersion();
+                    }
+                );
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Only indexed properties can be sorted on, so that Mongo never has to sort a page in memory.
+     */
+    private void checkAllowedProperties(Pageable pageable) {
+        if (!pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains)) {
+            throw new BadRequestAlertException("Sorting is only allowed on " + ALLOWED_ORDERED_PROPERTIES, ENTITY_NAME, "sortnotallowed");
+        }
+    }
+
+    private Mono<ResponseEntity<List<Produit>>> getProduitsAfter(
+        ProduitCriteria criteria,
+        String after,
+        Pageable pageable,
+        Set<String> fields,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get Produits after cursor : {}", after);
+        ProduitCursor cursor;
+        try {
+            cursor = after.isEmpty() ? ProduitCursor.start(pageable.getSort()) : ProduitCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        int size = pageable.getPageSize();
+        Flux<Produit> found;
+        if (fields == null) {
+            found = produitService.findAllAfter(criteria, cursor, size + 1);
+        } else {
+            // The next cursor is built from the sort property of the last produit, which must be read even when not requested
+            Set<String> read = new LinkedHashSet<>(fields);
+            read.add(cursor.getOrder().getProperty());
+            found = produitService.findAllAfter(criteria, cursor, size + 1, read);
+        }
+        // Read one extra produit to know whether a next page exists
+        return found
+            .collectList()
+            .map(produits -> {
+                HttpHeaders headers = new HttpHeaders();
+                if (produits.size() <= size) {
+                    return ResponseEntity.ok().headers(headers).body(produits);
+                }
+                List<Produit> page = produits.subList(0, size);
+                headers.add(HttpHeaders.LINK, nextLink(request, cursor.after(page.get(size - 1)), size));
+                return ResponseEntity.ok().headers(headers).body(page);
+            });
+    }
+
+    private String nextLink(ServerHttpRequest request, ProduitCursor next, int size) {
+        Sort.Order order = next.getOrder();
+        String uri = ForwardedHeaderUtils
+            .adaptFromForwardedHeaders(request.getURI(), request.getHeaders())
+            .replaceQueryParam("page")
+            .replaceQueryParam("size", size)
+            .replaceQueryParam("sort", order.getProperty() + "," + order.getDirection().name().toLowerCase())
+            .replaceQueryParam("after", next.encode())
+            .toUriString();
+        return "<" + uri + ">; rel=\"next\"";
     }
 
     /**
      * {@code GET  /produits/:id} : get the "id" produit.
+     * <p>
+     * The response carries the {@code ETag} of the produit, see {@link ProduitETag}.
      *
      * @param id the id of the produit to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the produit, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the produit,
+     * or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/{id}")
     public Mono<ResponseEntity<Produit>> getProduit(@PathVariable("id") String id) {
         log.debug("REST request to get Produit : {}", id);
-        Mono<Produit> produit = produitService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(produit);
+        return produitService
+            .findOne(id)
+            .map(produit -> ResponseEntity.ok().eTag(ProduitETag.of(produit)).body(produit))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /produits/:id?fields=} : get the "id" produit, with only the given fields.
+     * <p>
+     * The fields are read from Mongo with a projection, unless the produit is already cached. The {@code ETag} covers the
+     * returned fields only.
+     *
+     * @param id the id of the produit to retrieve.
+     * @param fields the comma-separated fields to return, among {@code id}, {@code nom}, {@code description}, {@code prix}
+     * and {@code version}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the partial produit,
+     * or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header,
+     * or with status {@code 400 (Bad Request)} if a field is not allowed, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public Mono<ResponseEntity<Map<String, Object>>> getProduitFields(
+        @PathVariable("id") String id,
+        @RequestParam("fields") String fields
+    ) {
+        log.debug("REST request to get Produit : {} with fields : {}", id, fields);
+        Set<String> fieldSet = parseFields(fields);
+        return produitService
+            .findOne(id, fieldSet)
+            .map(produit -> withFields(produit, fieldSet))
+            .map(produit -> ResponseEntity.ok().eTag(ProduitETag.of(produit)).body(toFields(produit, fieldSet)))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
     }
 
     /**
@@ -223,4 +857,65 @@ public class ProduitResource {
                 )
             );
     }
+
+    /**
+     * {@code POST  /produits/bulk/delete} : delete many produits, either by ids or by filter.
+     *
+     * @param bulkDelete the ids of the produits to delete, or the filter they must match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of deleted produits in body,
+     * or with status {@code 400 (Bad Request)} if neither ids nor a filter are given, or if both are.
+     */
+    @PostMapping("/bulk/delete")
+    public Mono<ResponseEntity<Long>> bulkDeleteProduits(@RequestBody ProduitBulkDeleteDTO bulkDelete) {
+        log.debug("REST request to bulk delete Produits : {}", bulkDelete);
+        boolean byIds = bulkDelete.getIds() != null && !bulkDelete.getIds().isEmpty();
+        boolean byFilter = bulkDelete.getFilter() != null && !bulkDelete.getFilter().isEmpty();
+        if (byIds == byFilter) {
+            throw new BadRequestAlertException("Either ids or a non empty filter are required", ENTITY_NAME, "bulkdeleteinvalid");
+        }
+        Mono<Long> deleted = byIds ? produitService.deleteAll(bulkDelete.getIds()) : produitService.deleteAll(bulkDelete.getFilter());
+        return deleted.map(count ->
+            ResponseEntity
+                .ok()
+                .headers(HeaderUtil.createAlert(applicationName, "A bulk deletion removed " + count + " produits", String.valueOf(count)))
+                .body(count)
+        );
+    }
+
+    /**
+     * {@code POST  /produits/bulk/prix} : change the prices of the produits matching a filter, by a percentage or an amount.
+     * <p>
+     * The ids of the matching produits are read by batches of {@code application.produit.bulk.batch-size}, and the prices of
+     * each batch are changed by the database with a single update. Produits without a price are left untouched.
+     *
+     * @param adjustment the filter the produits must match, and either the percentage or the amount added to their prices.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of modified produits in body,
+     * or with status {@code 400 (Bad Request)} if the filter is empty, or if neither a percentage nor an amount are given, or if both are.
+     */
+    @PostMapping("/bulk/prix")
+    public Mono<ResponseEntity<Long>> adjustProduitsPrix(@RequestBody ProduitPriceAdjustmentDTO adjustment) {
+        log.debug("REST request to adjust the prix of Produits : {}", adjustment);
+        if (adjustment.getFilter() == null || adjustment.getFilter().isEmpty()) {
+            throw new BadRequestAlertException("A non empty filter is required", ENTITY_NAME, "prixadjustmentinvalid");
+        }
+        if ((adjustment.getPercent() == null) == (adjustment.getAmount() == null)) {
+            throw new BadRequestAlertException("Either a percentage or an amount is required", ENTITY_NAME, "prixadjustmentinvalid");
+        }
+        if (adjustment.getPercent() != null && adjustment.getPercent() <= -100) {
+            throw new BadRequestAlertException("A percentage must be greater than -100", ENTITY_NAME, "prixadjustmentinvalid");
+        }
+        if (adjustment.getScale() != null && (adjustment.getScale() < 0 || adjustment.getScale() > MAX_PRIX_SCALE)) {
+            throw new BadRequestAlertException("The scale must be between 0 and " + MAX_PRIX_SCALE, ENTITY_NAME, "prixadjustmentinvalid");
+        }
+        return produitService
+            .adjustPrix(adjustment)
+            .map(count ->
+                ResponseEntity
+                    .ok()
+                    .headers(
+                        HeaderUtil.createAlert(applicationName, "A price adjustment modified " + count + " produits", String.valueOf(count))
+                    )
+                    .body(count)
+            );
+    }
 }
@@ -3,6 +3,7 @@ export interface IProduit {
   description?: string | null;
   nom?: string | null;
   prix?: number | null;
+  version?: number | null;
 }
 
 export type NewProduit = Omit<IProduit, 'id'> & { id: null };
@@ -23,6 +23,7 @@ describe('Produit Form Service', () => {
             description: expect.any(Object),
             nom: expect.any(Object),
             prix: expect.any(Object),
+            version: expect.any(Object),
           }),
         );
       });
@@ -36,6 +37,7 @@ describe('Produit Form Service', () => {
             description: expect.any(Object),
             nom: expect.any(Object),
             prix: expect.any(Object),
+            version: expect.any(Object),
           }),
         );
       });
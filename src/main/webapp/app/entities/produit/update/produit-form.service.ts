@@ -21,6 +21,7 @@ type ProduitFormGroupContent = {
   description: FormControl<IProduit['description']>;
   nom: FormControl<IProduit['nom']>;
   prix: FormControl<IProduit['prix']>;
+  version: FormControl<IProduit['version']>;
 };
 
 export type ProduitFormGroup = FormGroup<ProduitFormGroupContent>;
@@ -43,6 +44,7 @@ export class ProduitFormService {
       description: new FormControl(produitRawValue.description),
       nom: new FormControl(produitRawValue.nom),
       prix: new FormControl(produitRawValue.prix),
+      version: new FormControl(produitRawValue.version),
     });
   }
 
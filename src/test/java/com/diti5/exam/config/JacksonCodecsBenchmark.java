@@ -0,0 +1,137 @@
+package com.diti5.exam.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.diti5.exam.domain.Produit;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+/**
+ * Compares the size and the encoding and decoding time of a page of produits in JSON, CBOR and Smile, with the codecs
+ * configured by {@link JacksonConfiguration}.
+ * <p>
+ * Not part of the build, run it with {@code ./mvnw test -Dtest=JacksonCodecsBenchmark}.
+ */
+class JacksonCodecsBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final int WARMUP_ITERATIONS = 2_000;
+
+    private static final int ITERATIONS = 2_000;
+
+    private static final ResolvableType PAGE_TYPE = ResolvableType.forClassWithGenerics(List.class, Produit.class);
+
+    @Test
+    void compareCodecs() {
+        List<Produit> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(
+                new Produit()
+                    .id(String.format("65%022x", i))
+                    .nom("Produit " + i)
+                    .description("Description du produit " + i)
+                    .prix(i * 1.25)
+                    .version((long) i % 7)
+            );
+        }
+
+        int json = run(
+            "JSON",
+            new Jackson2JsonEncoder(mapper(null)),
+            new Jackson2JsonDecoder(mapper(null)),
+            MediaType.APPLICATION_JSON,
+            page
+        );
+        int cbor = run(
+            "CBOR",
+            new JacksonConfiguration.CborEncoder(mapper(new CBORFactory())),
+            new JacksonConfiguration.CborDecoder(mapper(new CBORFactory())),
+            MediaType.APPLICATION_CBOR,
+            page
+        );
+        int smile = run(
+            "Smile",
+            new Jackson2SmileEncoder(mapper(new SmileFactory())),
+            new Jackson2SmileDecoder(mapper(new SmileFactory())),
+            new MediaType("application", "x-jackson-smile"),
+            page
+        );
+
+        assertThat(cbor).isLessThan(json);
+        assertThat(smile).isLessThan(json);
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder().modules(new JavaTimeModule(), new Jdk8Module());
+        if (factory != null) {
+            builder.factory(factory);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the size of the encoded page, in bytes.
+     */
+    private static int run(String name, Encoder<Object> encoder, Decoder<Object> decoder, MimeType mimeType, List<Produit> page) {
+        byte[] bytes = encode(encoder, mimeType, page);
+        assertThat(decode(decoder, mimeType, bytes)).hasSize(PAGE_SIZE);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            decode(decoder, mimeType, encode(encoder, mimeType, page));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encode(encoder, mimeType, page);
+        }
+        long encoding = (System.nanoTime() - start) / ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decode(decoder, mimeType, bytes);
+        }
+        long decoding = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf(
+            "%-5s %8d bytes %10d ns/encode %10d ns/decode (page of %d produits)%n",
+            name,
+            bytes.length,
+            encoding,
+            decoding,
+            PAGE_SIZE
+        );
+        return bytes.length;
+    }
+
+    private static byte[] encode(Encoder<Object> encoder, MimeType mimeType, List<Produit> page) {
+        DataBuffer buffer = encoder.encodeValue(page, DefaultDataBufferFactory.sharedInstance, PAGE_TYPE, mimeType, Map.of());
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+
+    private static List<?> decode(Decoder<Object> decoder, MimeType mimeType, byte[] bytes) {
+        return (List<?>) decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(bytes), PAGE_TYPE, mimeType, Map.of());
+    }
+}
@@ -0,0 +1,73 @@
+package com.diti5.exam.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.diti5.exam.domain.Produit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for the binary codecs of {@link JacksonConfiguration}.
+ */
+class JacksonConfigurationTest {
+
+    private static final ResolvableType PRODUIT_TYPE = ResolvableType.forClass(Produit.class);
+
+    @Test
+    void selectsTheCodecMatchingTheMediaType() {
+        ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+        new JacksonConfiguration().binaryJacksonCodecCustomizer(new Jackson2ObjectMapperBuilder()).customize(configurer);
+
+        assertThat(writerFor(configurer, MediaType.APPLICATION_JSON).getWritableMediaTypes()).contains(MediaType.APPLICATION_JSON);
+        assertThat(writerFor(configurer, MediaType.APPLICATION_CBOR).getWritableMediaTypes()).containsExactly(MediaType.APPLICATION_CBOR);
+        assertThat(writerFor(configurer, MediaType.parseMediaType("application/x-jackson-smile")).getWritableMediaTypes())
+            .containsExactly(MediaType.parseMediaType("application/x-jackson-smile"));
+    }
+
+    @Test
+    void encodesAndDecodesCborStreams() {
+        ObjectMapper mapper = new ObjectMapper(new CBORFactory());
+        JacksonConfiguration.CborEncoder encoder = new JacksonConfiguration.CborEncoder(mapper);
+        JacksonConfiguration.CborDecoder decoder = new JacksonConfiguration.CborDecoder(mapper);
+        List<Produit> produits = List.of(new Produit().id("1").nom("a").prix(1.5), new Produit().id("2").nom("b"));
+
+        Flux<DataBuffer> many = encoder.encode(
+            Flux.fromIterable(produits),
+            DefaultDataBufferFactory.sharedInstance,
+            PRODUIT_TYPE,
+            MediaType.APPLICATION_CBOR,
+            Map.of()
+        );
+        assertThat(decoder.decode(many, PRODUIT_TYPE, MediaType.APPLICATION_CBOR, Map.of()).collectList().block())
+            .usingRecursiveFieldByFieldElementComparator()
+            .isEqualTo(produits);
+
+        Flux<DataBuffer> one = encoder.encode(
+            Mono.just(produits.get(0)),
+            DefaultDataBufferFactory.sharedInstance,
+            PRODUIT_TYPE,
+            MediaType.APPLICATION_CBOR,
+            Map.of()
+        );
+        assertThat(decoder.decodeToMono(DataBufferUtils.join(one), PRODUIT_TYPE, MediaType.APPLICATION_CBOR, Map.of()).block())
+            .usingRecursiveComparison()
+            .isEqualTo(produits.get(0));
+    }
+
+    private static HttpMessageWriter<?> writerFor(ServerCodecConfigurer configurer, MediaType mediaType) {
+        return configurer.getWriters().stream().filter(writer -> writer.canWrite(PRODUIT_TYPE, mediaType)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,143 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Unit tests for {@link BatchLoader}.
+ */
+class BatchLoaderTest {
+
+    private static final String METER_NAME = "test.reads.batch";
+
+    private MeterRegistry meterRegistry;
+
+    private List<List<String>> queries;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        queries = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void loadsTheKeysOfAWindowTogether() {
+        BatchLoader<String, String> loader = loader(Duration.ofMillis(50), 10, false);
+
+        CompletableFuture<String> a = loader.load("a").toFuture();
+        CompletableFuture<String> b = loader.load("b").toFuture();
+        CompletableFuture<String> missing = loader.load("missing").toFuture();
+        CompletableFuture<String> again = loader.load("a").toFuture();
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(b.join()).isEqualTo("B");
+        assertThat(missing.join()).isNull();
+        assertThat(again.join()).isEqualTo("A");
+        assertThat(queries).containsExactly(List.of("a", "b", "missing"));
+        assertThat(meterRegistry.get(METER_NAME).tag("read", "test").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void loadsAKeyAtOnceWhenIdleAndTheKeysOfAnInFlightQueryTogether() {
+        Sinks.One<String> slow = Sinks.one();
+        BatchLoader<String, String> loader = new BatchLoader<>(
+            METER_NAME,
+            "test",
+            key -> {
+                queries.add(List.of(key));
+                return key.equals("slow") ? slow.asMono() : Mono.just(key.toUpperCase());
+            },
+            keys -> {
+                queries.add(keys);
+                return Flux.fromIterable(keys).map(String::toUpperCase);
+            },
+            String::toLowerCase,
+            Duration.ZERO,
+            10,
+            Schedulers.parallel(),
+            meterRegistry
+        );
+
+        CompletableFuture<String> first = loader.load("slow").toFuture();
+        assertThat(queries).containsExactly(List.of("slow"));
+
+        CompletableFuture<String> a = loader.load("a").toFuture();
+        CompletableFuture<String> b = loader.load("b").toFuture();
+        assertThat(queries).containsExactly(List.of("slow"));
+        assertThat(a).isNotDone();
+
+        slow.tryEmitValue("SLOW");
+
+        assertThat(first.join()).isEqualTo("SLOW");
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(b.join()).isEqualTo("B");
+        assertThat(queries).containsExactly(List.of("slow"), List.of("a", "b"));
+    }
+
+    @Test
+    void loadsAFullBatchWithoutWaiting() {
+        BatchLoader<String, String> loader = loader(Duration.ofHours(1), 2, false);
+
+        CompletableFuture<String> a = loader.load("a").toFuture();
+        CompletableFuture<String> b = loader.load("b").toFuture();
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(b.join()).isEqualTo("B");
+        assertThat(queries).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void loadsASingleKeyOnItsOwn() {
+        BatchLoader<String, String> loader = loader(Duration.ZERO, 10, false);
+
+        assertThat(loader.load("a").block()).isEqualTo("A");
+        assertThat(loader.load("missing").block()).isNull();
+        assertThat(queries).containsExactly(List.of("a"), List.of("missing"));
+    }
+
+    @Test
+    void failsEveryKeyOfAFailedBatch() {
+        BatchLoader<String, String> loader = loader(Duration.ofHours(1), 2, true);
+
+        CompletableFuture<String> a = loader.load("a").toFuture();
+        CompletableFuture<String> b = loader.load("b").toFuture();
+
+        assertThatThrownBy(a::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(b::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private BatchLoader<String, String> loader(Duration window, int maxBatchSize, boolean failing) {
+        return new BatchLoader<>(
+            METER_NAME,
+            "test",
+            key -> {
+                queries.add(List.of(key));
+                return key.equals("missing") ? Mono.empty() : Mono.just(key.toUpperCase());
+            },
+            keys -> {
+                queries.add(keys);
+                return failing
+                    ? Flux.error(new IllegalStateException("failed"))
+                    : Flux.fromIterable(keys).filter(key -> !key.equals("missing")).map(String::toUpperCase);
+            },
+            String::toLowerCase,
+            window,
+            maxBatchSize,
+            Schedulers.parallel(),
+            meterRegistry
+        );
+    }
+}
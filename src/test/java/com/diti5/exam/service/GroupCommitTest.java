@@ -0,0 +1,101 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Unit tests for {@link GroupCommit}.
+ */
+class GroupCommitTest {
+
+    private MeterRegistry meterRegistry;
+
+    private List<List<String>> writes;
+
+    private List<String> retries;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        writes = new CopyOnWriteArrayList<>();
+        retries = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void writesTheValuesOfALingerTimeTogether() {
+        GroupCommit<String> groupCommit = groupCommit(Duration.ofMillis(50), 10);
+
+        CompletableFuture<String> a = groupCommit.submit("a").toFuture();
+        CompletableFuture<String> b = groupCommit.submit("b").toFuture();
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(b.join()).isEqualTo("B");
+        assertThat(writes).containsExactly(List.of("a", "b"));
+        assertThat(meterRegistry.get(GroupCommit.BATCH_METER_NAME).tag("write", "test").summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get(GroupCommit.LINGER_METER_NAME).tag("write", "test").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void writesAFullBatchWithoutWaiting() {
+        GroupCommit<String> groupCommit = groupCommit(Duration.ofHours(1), 2);
+
+        CompletableFuture<String> a = groupCommit.submit("a").toFuture();
+        CompletableFuture<String> b = groupCommit.submit("b").toFuture();
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(b.join()).isEqualTo("B");
+        assertThat(writes).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void retriesTheValuesOfAFailedBatchOneByOne() {
+        GroupCommit<String> groupCommit = groupCommit(Duration.ofHours(1), 2);
+
+        CompletableFuture<String> a = groupCommit.submit("a").toFuture();
+        CompletableFuture<String> invalid = groupCommit.submit("invalid").toFuture();
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThatThrownBy(invalid::join).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(retries).containsExactlyInAnyOrder("a", "invalid");
+    }
+
+    @Test
+    void doesNotRetryASingleValue() {
+        GroupCommit<String> groupCommit = groupCommit(Duration.ZERO, 10);
+
+        assertThatThrownBy(() -> groupCommit.submit("invalid").block()).isInstanceOf(IllegalArgumentException.class);
+        assertThat(retries).isEmpty();
+    }
+
+    private GroupCommit<String> groupCommit(Duration linger, int maxBatchSize) {
+        return new GroupCommit<>(
+            "test",
+            values -> {
+                writes.add(values);
+                return values.contains("invalid")
+                    ? Flux.error(new IllegalArgumentException("invalid"))
+                    : Flux.fromIterable(values).map(String::toUpperCase);
+            },
+            value -> {
+                retries.add(value);
+                return value.equals("invalid") ? Mono.error(new IllegalArgumentException("invalid")) : Mono.just(value.toUpperCase());
+            },
+            linger,
+            maxBatchSize,
+            Schedulers.parallel(),
+            meterRegistry
+        );
+    }
+}
@@ -0,0 +1,49 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.diti5.exam.domain.Produit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ProduitETag}.
+ */
+class ProduitETagTest {
+
+    @Test
+    void eTagChangesWithContent() {
+        Produit produit = new Produit().id("1").nom("AAAAAAAAAA").prix(1D);
+
+        assertThat(ProduitETag.of(produit))
+            .startsWith("\"")
+            .endsWith("\"")
+            .isEqualTo(ProduitETag.of(new Produit().id("1").nom("AAAAAAAAAA").prix(1D)));
+        assertThat(ProduitETag.of(produit)).isNotEqualTo(ProduitETag.of(new Produit().id("1").nom("AAAAAAAAAA").prix(2D)));
+        assertThat(ProduitETag.of(new Produit().id("1").nom("a|").description("b"))).isNotEqualTo(
+            ProduitETag.of(new Produit().id("1").nom("a").description("|b"))
+        );
+    }
+
+    @Test
+    void pageETagCoversOrderAndTotal() {
+        Produit first = new Produit().id("1");
+        Produit second = new Produit().id("2");
+
+        assertThat(ProduitETag.of(List.of(first, second), 2L)).isNotEqualTo(ProduitETag.of(List.of(second, first), 2L));
+        assertThat(ProduitETag.of(List.of(first, second), 2L)).isNotEqualTo(ProduitETag.of(List.of(first, second), 3L));
+        assertThat(ProduitETag.of(List.of(first, second), null)).isNotEqualTo(ProduitETag.of(List.of(first, second), 2L));
+    }
+
+    @Test
+    void matchesIfMatchHeader() {
+        Produit produit = new Produit().id("1");
+        String eTag = ProduitETag.of(produit);
+
+        assertThat(ProduitETag.matches("*", produit)).isTrue();
+        assertThat(ProduitETag.matches(eTag, produit)).isTrue();
+        assertThat(ProduitETag.matches("\"other\", " + eTag, produit)).isTrue();
+        assertThat(ProduitETag.matches("W/" + eTag, produit)).isFalse();
+        assertThat(ProduitETag.matches("\"other\"", produit)).isFalse();
+    }
+}
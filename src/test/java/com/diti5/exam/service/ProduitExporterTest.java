@@ -0,0 +1,94 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link ProduitExporter}.
+ */
+class ProduitExporterTest {
+
+    private ProduitExporter produitExporter;
+
+    @BeforeEach
+    public void setup() {
+        ProduitRepository produitRepository = mock(ProduitRepository.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProduit().getExport().setBatchSize(2);
+        when(produitRepository.streamAll(anyInt(), eq(false))).thenReturn(
+            Flux.just(
+                new Produit().id("1").nom("a").prix(1.5).version(0L),
+                new Produit().id("2").nom("b, \"c\"").description("d"),
+                new Produit().id("3").nom("e").version(2L)
+            )
+        );
+        produitExporter = new ProduitExporter(produitRepository, new ObjectMapper(), applicationProperties);
+    }
+
+    @Test
+    void escapesCsvValues() {
+        assertThat(ProduitExporter.escapeCsv(null)).isEmpty();
+        assertThat(ProduitExporter.escapeCsv("a b")).isEqualTo("a b");
+        assertThat(ProduitExporter.escapeCsv("a,\"b\"")).isEqualTo("\"a,\"\"b\"\"\"");
+        assertThat(ProduitImporter.splitCsv(ProduitExporter.escapeCsv("a,\"b\""))).containsExactly("a,\"b\"");
+    }
+
+    @Test
+    void exportsCsvByBatches() {
+        List<byte[]> chunks = chunks(produitExporter.export(ProduitFeedFormat.CSV, false));
+
+        assertThat(chunks).hasSize(2);
+        assertThat(new String(concat(chunks), StandardCharsets.UTF_8)).isEqualTo(
+            "id,nom,description,prix,version\n1,a,,1.5,0\n2,\"b, \"\"c\"\"\",d,,\n3,e,,,2\n"
+        );
+    }
+
+    @Test
+    void exportsGzippedJsonLines() throws IOException {
+        byte[] compressed = concat(chunks(produitExporter.export(ProduitFeedFormat.JSON_LINES, true)));
+
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8).lines())
+                .hasSize(3)
+                .first()
+                .isEqualTo("{\"id\":\"1\",\"description\":null,\"nom\":\"a\",\"prix\":1.5,\"version\":0}");
+        }
+    }
+
+    private static List<byte[]> chunks(Flux<DataBuffer> export) {
+        return export
+            .map(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                return bytes;
+            })
+            .collectList()
+            .block();
+    }
+
+    private static byte[] concat(List<byte[]> chunks) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        chunks.forEach(output::writeBytes);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,161 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.ProduitIdempotencyKey;
+import com.diti5.exam.repository.ProduitIdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link ProduitIdempotency}.
+ */
+class ProduitIdempotencyTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private static final String KEY_ID = "anonymous:key";
+
+    private ProduitIdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Cache<String, ProduitIdempotencyKey> idempotencyCache;
+
+    private ProduitIdempotency produitIdempotency;
+
+    private AtomicInteger creations;
+
+    private Supplier<Mono<Produit>> create;
+
+    @BeforeEach
+    public void setup() {
+        idempotencyKeyRepository = mock(ProduitIdempotencyKeyRepository.class);
+        when(idempotencyKeyRepository.insert(any(ProduitIdempotencyKey.class))).thenAnswer(invocation ->
+            Mono.just(invocation.getArgument(0))
+        );
+        when(idempotencyKeyRepository.save(any(ProduitIdempotencyKey.class))).thenAnswer(invocation ->
+            Mono.just(invocation.getArgument(0))
+        );
+        when(idempotencyKeyRepository.deleteById(any(String.class))).thenReturn(Mono.empty());
+        idempotencyCache = Caffeine.newBuilder().build();
+        produitIdempotency =
+            new ProduitIdempotency(
+                idempotencyKeyRepository,
+                idempotencyCache,
+                new ObjectMapper(),
+                new ApplicationProperties(),
+                Clock.fixed(NOW, ZoneOffset.UTC)
+            );
+        creations = new AtomicInteger();
+        create = () -> Mono.fromSupplier(() -> new Produit().id("created-" + creations.incrementAndGet()).nom("AAAAAAAAAA"));
+    }
+
+    @Test
+    void expiresTheCachedKeysWithTheirKey() {
+        Expiry<String, ProduitIdempotencyKey> expiry = ProduitIdempotency.cacheExpiry(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        ProduitIdempotencyKey reloaded = new ProduitIdempotencyKey().id(KEY_ID).expiresAt(NOW.plus(Duration.ofMinutes(5)));
+        assertThat(expiry.expireAfterCreate(KEY_ID, reloaded, 0)).isEqualTo(Duration.ofMinutes(5).toNanos());
+        ProduitIdempotencyKey expired = new ProduitIdempotencyKey().id(KEY_ID).expiresAt(NOW.minusSeconds(1));
+        assertThat(expiry.expireAfterUpdate(KEY_ID, expired, 0, Long.MAX_VALUE)).isZero();
+    }
+
+    @Test
+    void replaysTheCreationFromTheLocalCache() {
+        ProduitIdempotency.Outcome first = produitIdempotency.create("key", new Produit().nom("AAAAAAAAAA"), create).block();
+        ProduitIdempotency.Outcome second = produitIdempotency.create("key", new Produit().nom("AAAAAAAAAA"), create).block();
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.produit().getId()).isEqualTo(first.produit().getId());
+        assertThat(creations).hasValue(1);
+        assertThat(idempotencyCache.getIfPresent(KEY_ID).getExpiresAt()).isEqualTo(NOW.plus(Duration.ofHours(24)));
+    }
+
+    @Test
+    void replaysTheCreationStoredByAnotherInstance() {
+        ProduitIdempotencyKey stored = storedKey(new Produit().nom("AAAAAAAAAA")).produit(new Produit().id("stored").nom("AAAAAAAAAA"));
+        when(idempotencyKeyRepository.insert(any(ProduitIdempotencyKey.class))).thenReturn(Mono.error(new DuplicateKeyException("key")));
+        when(idempotencyKeyRepository.findById(KEY_ID)).thenReturn(Mono.just(stored));
+
+        ProduitIdempotency.Outcome outcome = produitIdempotency.create("key", new Produit().nom("AAAAAAAAAA"), create).block();
+
+        assertThat(outcome.replayed()).isTrue();
+        assertThat(outcome.produit().getId()).isEqualTo("stored");
+        assertThat(creations).hasValue(0);
+        assertThat(idempotencyCache.getIfPresent(KEY_ID)).isSameAs(stored);
+    }
+
+    @Test
+    void rejectsAKeyReusedForAnotherRequestOrInProgress() {
+        produitIdempotency.create("key", new Produit().nom("AAAAAAAAAA"), create).block();
+
+        assertThatThrownBy(() -> produitIdempotency.create("key", new Produit().nom("BBBBBBBBBB"), create).block())
+            .isInstanceOf(IdempotencyKeyReusedException.class);
+
+        when(idempotencyKeyRepository.insert(any(ProduitIdempotencyKey.class))).thenReturn(Mono.error(new DuplicateKeyException("key")));
+        when(idempotencyKeyRepository.findById("anonymous:other")).thenReturn(
+            Mono.just(storedKey(new Produit().nom("AAAAAAAAAA")).id("anonymous:other"))
+        );
+        assertThatThrownBy(() -> produitIdempotency.create("other", new Produit().nom("AAAAAAAAAA"), create).block())
+            .isInstanceOf(IdempotencyKeyInProgressException.class);
+        assertThat(creations).hasValue(1);
+    }
+
+    @Test
+    void takesOverAClaimWhoseCreationDidNotCompleteInTime() {
+        List<Instant> leases = new ArrayList<>();
+        when(idempotencyKeyRepository.insert(any(ProduitIdempotencyKey.class))).thenAnswer(invocation -> {
+            ProduitIdempotencyKey claim = invocation.getArgument(0);
+            leases.add(claim.getExpiresAt());
+            return leases.size() == 1 ? Mono.error(new DuplicateKeyException("key")) : Mono.just(claim);
+        });
+        ProduitIdempotencyKey abandoned = storedKey(new Produit().nom("AAAAAAAAAA")).expiresAt(NOW.minusSeconds(1));
+        when(idempotencyKeyRepository.findById(KEY_ID)).thenReturn(Mono.just(abandoned));
+        when(idempotencyKeyRepository.delete(abandoned)).thenReturn(Mono.empty());
+
+        ProduitIdempotency.Outcome outcome = produitIdempotency.create("key", new Produit().nom("AAAAAAAAAA"), create).block();
+
+        assertThat(outcome.replayed()).isFalse();
+        assertThat(creations).hasValue(1);
+        assertThat(leases).containsExactly(NOW.plusSeconds(30), NOW.plusSeconds(30));
+        assertThat(idempotencyCache.getIfPresent(KEY_ID).getExpiresAt()).isEqualTo(NOW.plus(Duration.ofHours(24)));
+    }
+
+    @Test
+    void releasesTheKeyWhenTheCreationFails() {
+        Supplier<Mono<Produit>> failing = () -> Mono.error(new IllegalStateException("down"));
+
+        assertThatThrownBy(() -> produitIdempotency.create("key", new Produit().nom("AAAAAAAAAA"), failing).block())
+            .isInstanceOf(IllegalStateException.class);
+
+        verify(idempotencyKeyRepository).deleteById(KEY_ID);
+        verify(idempotencyKeyRepository, never()).save(any(ProduitIdempotencyKey.class));
+        assertThat(idempotencyCache.getIfPresent(KEY_ID)).isNull();
+    }
+
+    private ProduitIdempotencyKey storedKey(Produit request) {
+        return new ProduitIdempotencyKey().id(KEY_ID).requestHash(produitIdempotency.hash(request)).expiresAt(NOW.plusSeconds(60));
+    }
+}
@@ -0,0 +1,134 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import com.diti5.exam.service.dto.ProduitBulkResultDTO;
+import com.diti5.exam.service.dto.ProduitImportProgressDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link ProduitImporter}.
+ */
+class ProduitImporterTest {
+
+    private final List<Produit> saved = new ArrayList<>();
+
+    private ProduitImporter produitImporter;
+
+    @BeforeEach
+    public void setup() {
+        ProduitService produitService = mock(ProduitService.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProduit().getBulk().setBatchSize(2);
+        when(produitService.saveAll(any(), eq(false))).thenAnswer(invocation -> {
+            Flux<Produit> produits = invocation.getArgument(0);
+            return produits
+                .doOnNext(saved::add)
+                .index()
+                .map(produit ->
+                    produit.getT2().getId() == null
+                        ? ProduitBulkResultDTO.created(produit.getT1(), "new")
+                        : ProduitBulkResultDTO.failed(produit.getT1(), produit.getT2().getId(), "duplicate key")
+                );
+        });
+        produitImporter = new ProduitImporter(produitService, new ObjectMapper(), applicationProperties);
+    }
+
+    @Test
+    void splitsQuotedValues() {
+        assertThat(ProduitImporter.splitCsv("a,\"b, c\",\"d \"\"e\"\"\",")).containsExactly("a", "b, c", "d \"e\"", "");
+        assertThatThrownBy(() -> ProduitImporter.splitCsv("a,\"b")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void importsCsvInBatches() {
+        List<ProduitImportProgressDTO> progress = produitImporter
+            .importFeed(Flux.just("\uFEFFPrix,nom", "1.5,a", "", "abc,b", "2", "3,\"c, d\"", "4,e"), ProduitFeedFormat.CSV)
+            .collectList()
+            .block();
+
+        assertThat(progress).extracting(ProduitImportProgressDTO::getRows).containsExactly(2L, 4L, 5L);
+        assertThat(progress)
+            .flatMap(ProduitImportProgressDTO::getErrors)
+            .extracting(ProduitImportProgressDTO.RowError::getRow)
+            .containsExactly(4L, 5L);
+        assertThat(progress.get(2).getCreated()).isEqualTo(3);
+        assertThat(progress.get(2).getFailed()).isEqualTo(2);
+        assertThat(saved).extracting(Produit::getNom).containsExactly("a", "c, d", "e");
+        assertThat(saved).extracting(Produit::getPrix).containsExactly(1.5, 3D, 4D);
+    }
+
+    @Test
+    void importsTheMultiLineDescriptionsOfAnExport() {
+        ProduitRepository produitRepository = mock(ProduitRepository.class);
+        when(produitRepository.streamAll(anyInt(), eq(false))).thenReturn(
+            Flux.just(new Produit().nom("a").description("first line\n\n\"quoted\", line"), new Produit().nom("b").prix(2D))
+        );
+        String export = new ProduitExporter(produitRepository, new ObjectMapper(), new ApplicationProperties())
+            .export(ProduitFeedFormat.CSV, false)
+            .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+            .collect(Collectors.joining())
+            .block();
+
+        List<ProduitImportProgressDTO> progress = produitImporter
+            .importFeed(Flux.fromArray(export.split("\n")), ProduitFeedFormat.CSV)
+            .collectList()
+            .block();
+
+        assertThat(progress.get(progress.size() - 1).getCreated()).isEqualTo(2);
+        assertThat(saved).extracting(Produit::getNom).containsExactly("a", "b");
+        assertThat(saved).extracting(Produit::getDescription).containsExactly("first line\n\n\"quoted\", line", null);
+    }
+
+    @Test
+    void reportsAQuotedValueNotTerminatedAtTheEndOfTheFeed() {
+        List<ProduitImportProgressDTO> progress = produitImporter
+            .importFeed(Flux.just("nom,description", "a,b", "c,\"d", "e"), ProduitFeedFormat.CSV)
+            .collectList()
+            .block();
+
+        assertThat(progress)
+            .flatMap(ProduitImportProgressDTO::getErrors)
+            .extracting(ProduitImportProgressDTO.RowError::getRow)
+            .containsExactly(3L);
+        assertThat(saved).extracting(Produit::getNom).containsExactly("a");
+    }
+
+    @Test
+    void importsJsonLinesAndReportsWriteErrors() {
+        List<ProduitImportProgressDTO> progress = produitImporter
+            .importFeed(Flux.just("{\"nom\":\"a\",\"version\":3}", "{\"id\":\"1\",\"nom\":\"b\"}", "{nom"), ProduitFeedFormat.JSON_LINES)
+            .collectList()
+            .block();
+
+        ProduitImportProgressDTO last = progress.get(progress.size() - 1);
+        assertThat(last.getRows()).isEqualTo(3);
+        assertThat(last.getCreated()).isEqualTo(1);
+        assertThat(last.getFailed()).isEqualTo(2);
+        assertThat(progress.get(0).getErrors()).extracting(ProduitImportProgressDTO.RowError::getId).containsExactly("1");
+        assertThat(saved.get(0).getVersion()).isNull();
+    }
+
+    @Test
+    void rejectsUnknownColumns() {
+        assertThatThrownBy(() -> produitImporter.importFeed(Flux.just("nom,price", "a,1"), ProduitFeedFormat.CSV).blockLast())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("price");
+    }
+}
@@ -0,0 +1,123 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import com.diti5.exam.service.dto.ProduitPriceStatsDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for {@link ProduitPriceStatistics}.
+ */
+class ProduitPriceStatisticsTest {
+
+    private ProduitRepository produitRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private ProduitPriceStatistics produitPriceStatistics;
+
+    @BeforeEach
+    public void setup() {
+        produitRepository = mock(ProduitRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProduit().getStats().setBuckets(List.of(100D, 10D));
+        produitPriceStatistics = new ProduitPriceStatistics(produitRepository, applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void computesStatisticsOfThePrices() {
+        for (int i = 1; i <= 200; i++) {
+            produitPriceStatistics.put(new Produit().id(Integer.toString(i)).prix((double) i));
+        }
+        produitPriceStatistics.put(new Produit().id("none"));
+
+        ProduitPriceStatsDTO stats = produitPriceStatistics.get();
+
+        assertThat(stats.getCount()).isEqualTo(200);
+        assertThat(stats.getMin()).isEqualTo(1D);
+        assertThat(stats.getMax()).isEqualTo(200D);
+        assertThat(stats.getAverage()).isEqualTo(100.5);
+        assertThat(stats.getPercentiles()).containsOnlyKeys("p50", "p90", "p95", "p99");
+        assertThat(stats.getPercentiles().get("p50")).isCloseTo(100D, within(1D));
+        assertThat(stats.getPercentiles().get("p99")).isCloseTo(198D, within(1.98));
+        assertThat(stats.getHistogram()).extracting(ProduitPriceStatsDTO.Bucket::getCount).containsExactly(9L, 90L, 101L);
+        assertThat(stats.getHistogram().get(0).getFrom()).isNull();
+        assertThat(stats.getHistogram().get(2).getTo()).isNull();
+    }
+
+    @Test
+    void updatesOnWrites() {
+        produitPriceStatistics.put(new Produit().id("1").prix(5D));
+        produitPriceStatistics.put(new Produit().id("2").prix(50D));
+        produitPriceStatistics.put(new Produit().id("2").prix(500D));
+        produitPriceStatistics.remove("1");
+        produitPriceStatistics.remove("unknown");
+
+        ProduitPriceStatsDTO stats = produitPriceStatistics.get();
+
+        assertThat(stats.getCount()).isEqualTo(1);
+        assertThat(stats.getMin()).isEqualTo(500D);
+        assertThat(stats.getAverage()).isEqualTo(500D);
+        assertThat(stats.getHistogram()).extracting(ProduitPriceStatsDTO.Bucket::getCount).containsExactly(0L, 0L, 1L);
+
+        produitPriceStatistics.remove("2");
+        assertThat(produitPriceStatistics.get().getAverage()).isNull();
+    }
+
+    @Test
+    void reconcilesWithTheDatabase() {
+        produitPriceStatistics.put(new Produit().id("1").prix(0.1));
+        produitPriceStatistics.put(new Produit().id("2").prix(0.2));
+        when(produitRepository.summarizePrix()).thenReturn(Mono.just(new DoubleSummaryStatistics(2, 0.1, 0.2, 0.1 + 0.2)));
+
+        assertThat(produitPriceStatistics.reconcile().block()).isTrue();
+
+        when(produitRepository.summarizePrix()).thenReturn(Mono.just(new DoubleSummaryStatistics(1, 3D, 3D, 3D)));
+        when(produitRepository.findByCriteria(any(), any(), any())).thenReturn(Flux.just(new Produit().id("3").prix(3D)));
+
+        assertThat(produitPriceStatistics.reconcile().block()).isFalse();
+        assertThat(produitPriceStatistics.get().getMin()).isEqualTo(3D);
+        assertThat(meterRegistry.get(ProduitPriceStatistics.DRIFT_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void overlappingRebuildsKeepTheWritesAndTheLatestLoad() {
+        Sinks.Many<Produit> first = Sinks.many().unicast().onBackpressureBuffer();
+        Sinks.Many<Produit> second = Sinks.many().unicast().onBackpressureBuffer();
+        when(produitRepository.findByCriteria(any(), any(), any())).thenReturn(first.asFlux(), second.asFlux());
+
+        CompletableFuture<Long> firstRebuild = produitPriceStatistics.rebuild().toFuture();
+        produitPriceStatistics.put(new Produit().id("1").prix(1D));
+        CompletableFuture<Long> secondRebuild = produitPriceStatistics.rebuild().toFuture();
+        produitPriceStatistics.put(new Produit().id("2").prix(2D));
+
+        // The second load reads the produit written before it started
+        second.tryEmitNext(new Produit().id("1").prix(1D));
+        second.tryEmitNext(new Produit().id("3").prix(3D));
+        second.tryEmitComplete();
+        first.tryEmitComplete();
+
+        assertThat(firstRebuild.join()).isEqualTo(3);
+        assertThat(secondRebuild.join()).isEqualTo(3);
+        // The second rebuild started last, it is kept with the write made since it started
+        assertThat(produitPriceStatistics.get().getCount()).isEqualTo(3);
+        assertThat(produitPriceStatistics.get().getMax()).isEqualTo(3D);
+    }
+}
@@ -0,0 +1,174 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for {@link ProduitReplica}.
+ */
+class ProduitReplicaTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private ProduitRepository produitRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private Clock clock;
+
+    private Sinks.Many<ChangeStreamEvent<Produit>> changes;
+
+    private ProduitReplica produitReplica;
+
+    @BeforeEach
+    public void setup() {
+        produitRepository = mock(ProduitRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        changes = Sinks.many().multicast().directBestEffort();
+        when(produitRepository.watch(any(Instant.class))).thenReturn(changes.asFlux());
+        when(produitRepository.heartbeat()).thenReturn(Mono.empty());
+        when(produitRepository.findAll()).thenReturn(
+            Flux.just(
+                new Produit().id("1").nom("b").prix(3D).version(0L),
+                new Produit().id("2").nom("a").prix(1D).version(0L),
+                new Produit().id("3").nom("c").version(0L)
+            )
+        );
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProduit().getReplica().setEnabled(true);
+        applicationProperties.getProduit().getReplica().setMaxLag(Duration.ofSeconds(10));
+        produitReplica = new ProduitReplica(produitRepository, applicationProperties, meterRegistry, clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        produitReplica.stop();
+    }
+
+    @Test
+    void doesNotServeReadsUntilLoaded() {
+        assertThat(produitReplica.isServing()).isFalse();
+        assertThat(produitReplica.canRead(PageRequest.of(0, 20))).isFalse();
+
+        produitReplica.start();
+
+        assertThat(produitReplica.isServing()).isTrue();
+        assertThat(produitReplica.findOne("1").block().getNom()).isEqualTo("b");
+        assertThat(meterRegistry.get(ProduitReplica.SIZE_METER_NAME).gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void readsSortedPages() {
+        produitReplica.start();
+
+        assertThat(produitReplica.findAll(PageRequest.of(0, 2)).map(Produit::getId).collectList().block()).containsExactly("1", "2");
+        assertThat(produitReplica.findAll(PageRequest.of(0, 2, Sort.by("nom"))).map(Produit::getId).collectList().block())
+            .containsExactly("2", "1");
+        assertThat(produitReplica.findAll(PageRequest.of(1, 2, Sort.by("nom"))).map(Produit::getId).collectList().block())
+            .containsExactly("3");
+        assertThat(produitReplica.findAll(PageRequest.of(0, 3, Sort.by(Sort.Order.desc("prix")))).map(Produit::getId).collectList().block())
+            .containsExactly("1", "2", "3");
+        assertThat(produitReplica.canRead(PageRequest.of(0, 2, Sort.by("prix", "id")))).isTrue();
+        assertThat(produitReplica.canRead(PageRequest.of(0, 2, Sort.by("description")))).isFalse();
+        assertThat(produitReplica.canRead(PageRequest.of(0, 2, Sort.by("prix", "nom")))).isFalse();
+    }
+
+    @Test
+    void readsOnlyTheIdTieBreaksInTheDirectionOfTheSort() {
+        produitReplica.start();
+
+        assertThat(produitReplica.canRead(PageRequest.of(0, 2, Sort.by(Sort.Order.desc("nom"), Sort.Order.desc("id"))))).isTrue();
+        assertThat(produitReplica.canRead(PageRequest.of(0, 2, Sort.by(Sort.Order.asc("nom"), Sort.Order.desc("id"))))).isFalse();
+        assertThat(produitReplica.canRead(PageRequest.of(0, 2, Sort.by(Sort.Order.desc("prix"), Sort.Order.asc("id"))))).isFalse();
+    }
+
+    @Test
+    void followsTheChangeStream() {
+        produitReplica.start();
+
+        changes.tryEmitNext(change(NOW.minusSeconds(2), "1", new Produit().id("1").nom("d").prix(3D).version(1L)));
+        changes.tryEmitNext(change(NOW.minusSeconds(1), "2", null));
+        produitReplica.put(new Produit().id("4").nom("e").version(0L));
+        // A change older than the write already applied is ignored
+        changes.tryEmitNext(change(NOW.minusSeconds(1), "1", new Produit().id("1").nom("b").prix(3D).version(0L)));
+
+        assertThat(produitReplica.findOne("1").block().getNom()).isEqualTo("d");
+        assertThat(produitReplica.findOne("2").block()).isNull();
+        assertThat(produitReplica.findAll(PageRequest.of(0, 10, Sort.by("nom"))).map(Produit::getId).collectList().block())
+            .containsExactly("3", "1", "4");
+        assertThat(produitReplica.lag()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void fallsBackWhenTheChangeStreamFails() {
+        produitReplica.start();
+        when(produitRepository.watch(any(Instant.class))).thenReturn(Flux.never());
+        when(produitRepository.findAll()).thenReturn(Flux.never());
+
+        changes.tryEmitError(new IllegalStateException("disconnected"));
+
+        assertThat(produitReplica.isServing()).isTrue();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(11));
+        assertThat(produitReplica.lag()).isEqualTo(Duration.ofSeconds(11));
+        assertThat(produitReplica.isServing()).isFalse();
+    }
+
+    @Test
+    void stopsServingWhenTheChangeStreamFallsSilent() {
+        produitReplica.start();
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(11));
+        assertThat(produitReplica.lag()).isEqualTo(Duration.ofSeconds(11));
+        assertThat(produitReplica.isServing()).isFalse();
+
+        changes.tryEmitNext(heartbeat(NOW.plusSeconds(10)));
+
+        assertThat(produitReplica.lag()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(produitReplica.isServing()).isTrue();
+        assertThat(produitReplica.findOne("heartbeat").block()).isNull();
+    }
+
+    private static ChangeStreamEvent<Produit> heartbeat(Instant timestamp) {
+        ChangeStreamEvent<Produit> event = change(timestamp, "heartbeat", new Produit().id("heartbeat"));
+        when(event.getCollectionName()).thenReturn(ProduitRepository.REPLICA_HEARTBEAT_COLLECTION);
+        return event;
+    }
+
+    private static ChangeStreamEvent<Produit> change(Instant timestamp, String id, Produit body) {
+        @SuppressWarnings("unchecked")
+        ChangeStreamEvent<Produit> event = mock(ChangeStreamEvent.class);
+        @SuppressWarnings("unchecked")
+        ChangeStreamDocument<Document> raw = mock(ChangeStreamDocument.class);
+        when(raw.getDocumentKey()).thenReturn(new BsonDocument("_id", new BsonString(id)));
+        when(event.getRaw()).thenReturn(raw);
+        when(event.getTimestamp()).thenReturn(timestamp);
+        when(event.getBody()).thenReturn(body);
+        return event;
+    }
+}
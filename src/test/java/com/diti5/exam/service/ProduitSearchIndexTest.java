@@ -0,0 +1,88 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.repository.ProduitRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link ProduitSearchIndex}.
+ */
+class ProduitSearchIndexTest {
+
+    private ProduitRepository produitRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private ProduitSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setup() {
+        produitRepository = mock(ProduitRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        searchIndex = new ProduitSearchIndex(produitRepository, meterRegistry);
+        searchIndex.index(new Produit().id("1").nom("Café moulu").description("Arabica bio torréfié"));
+        searchIndex.index(new Produit().id("2").nom("Chocolat noir").description("Cacao et café"));
+        searchIndex.index(new Produit().id("3").nom("Thé vert").description("Feuilles de Chine"));
+    }
+
+    @Test
+    void searchMatchesPrefixes() {
+        assertThat(searchIndex.search("cho", 10)).extracting(Produit::getId).containsExactly("2");
+        assertThat(searchIndex.search("t", 10)).extracting(Produit::getId).containsExactly("3", "1");
+    }
+
+    @Test
+    void searchIgnoresCaseAndAccents() {
+        assertThat(searchIndex.search("THE", 10)).extracting(Produit::getId).containsExactly("3");
+        assertThat(searchIndex.search("torrefie", 10)).extracting(Produit::getId).containsExactly("1");
+    }
+
+    @Test
+    void searchToleratesTypos() {
+        assertThat(searchIndex.search("chocolst", 10)).extracting(Produit::getId).containsExactly("2");
+        assertThat(searchIndex.search("arabixa", 10)).extracting(Produit::getId).containsExactly("1");
+        assertThat(searchIndex.search("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void searchRanksNomBeforeDescription() {
+        assertThat(searchIndex.search("cafe", 10)).extracting(Produit::getId).containsExactly("1", "2");
+        assertThat(searchIndex.search("cafe", 1)).extracting(Produit::getId).containsExactly("1");
+    }
+
+    @Test
+    void searchRequiresEveryWord() {
+        assertThat(searchIndex.search("cafe cacao", 10)).extracting(Produit::getId).containsExactly("2");
+        assertThat(searchIndex.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void indexReplacesAndRemoves() {
+        searchIndex.index(new Produit().id("2").nom("Chocolat au lait"));
+        searchIndex.remove("1");
+
+        assertThat(searchIndex.search("cafe", 10)).isEmpty();
+        assertThat(searchIndex.search("lait", 10)).extracting(Produit::getNom).containsExactly("Chocolat au lait");
+        assertThat(meterRegistry.get(ProduitSearchIndex.DOCUMENTS_METER_NAME).gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuildLoadsTheDatabase() {
+        when(produitRepository.findAll()).thenReturn(Flux.just(new Produit().id("4").nom("Miel")));
+
+        assertThat(searchIndex.rebuild().block()).isEqualTo(1);
+
+        assertThat(searchIndex.search("miel", 10)).extracting(Produit::getId).containsExactly("4");
+        assertThat(searchIndex.search("cafe", 10)).isEmpty();
+        assertThat(meterRegistry.get(ProduitSearchIndex.REBUILD_METER_NAME).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ProduitSearchIndex.MEMORY_METER_NAME).gauge().value()).isPositive();
+    }
+}
@@ -0,0 +1,73 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for {@link RebuildableState}.
+ */
+class RebuildableStateTest {
+
+    private RebuildableState<List<String>> state;
+
+    @BeforeEach
+    public void setup() {
+        state = new RebuildableState<>(new ArrayList<>(List.of("initial")));
+    }
+
+    @Test
+    void replaysTheWritesMadeDuringTheRebuild() {
+        Sinks.One<List<String>> load = Sinks.one();
+
+        CompletableFuture<List<String>> rebuilt = state.rebuild(load.asMono()).toFuture();
+        state.write(current -> current.add("written"));
+        load.tryEmitValue(new ArrayList<>(List.of("loaded")));
+
+        assertThat(rebuilt.join()).containsExactly("loaded", "written");
+        assertThat(state.get()).containsExactly("loaded", "written");
+    }
+
+    @Test
+    void keepsTheRebuildStartedLastWhenRebuildsOverlap() {
+        Sinks.One<List<String>> firstLoad = Sinks.one();
+        Sinks.One<List<String>> secondLoad = Sinks.one();
+
+        CompletableFuture<List<String>> first = state.rebuild(firstLoad.asMono()).toFuture();
+        state.write(current -> current.add("a"));
+        CompletableFuture<List<String>> second = state.rebuild(secondLoad.asMono()).toFuture();
+        state.write(current -> current.add("b"));
+
+        secondLoad.tryEmitValue(new ArrayList<>(List.of("second")));
+        assertThat(state.get()).containsExactly("second", "b");
+
+        // The first rebuild read the database before the second one, it must not replace it
+        firstLoad.tryEmitValue(new ArrayList<>(List.of("first")));
+        state.write(current -> current.add("c"));
+
+        assertThat(first.join()).containsExactly("second", "b", "c");
+        assertThat(second.join()).containsExactly("second", "b", "c");
+        assertThat(state.get()).containsExactly("second", "b", "c");
+    }
+
+    @Test
+    void stopsJournalingAfterAFailedRebuild() {
+        Sinks.One<List<String>> load = Sinks.one();
+
+        CompletableFuture<List<String>> failed = state.rebuild(load.asMono()).toFuture();
+        load.tryEmitError(new IllegalStateException("down"));
+        state.write(current -> current.add("written"));
+
+        assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(state.get()).containsExactly("initial", "written");
+        assertThat(state.rebuild(Mono.just(new ArrayList<>(List.of("loaded")))).block()).containsExactly("loaded");
+    }
+}
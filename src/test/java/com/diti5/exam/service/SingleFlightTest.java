@@ -0,0 +1,90 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ */
+class SingleFlightTest {
+
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<String, String> singleFlight;
+
+    private AtomicInteger reads;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+        reads = new AtomicInteger();
+    }
+
+    @Test
+    void sharesTheReadInFlight() {
+        Sinks.One<String> result = Sinks.one();
+
+        CompletableFuture<String> first = singleFlight.execute("1", () -> read(result.asMono())).toFuture();
+        CompletableFuture<String> second = singleFlight.execute("1", () -> read(result.asMono())).toFuture();
+        CompletableFuture<String> other = singleFlight.execute("2", () -> read(Mono.just("b"))).toFuture();
+        result.tryEmitValue("a");
+
+        assertThat(first.join()).isEqualTo("a");
+        assertThat(second.join()).isEqualTo("a");
+        assertThat(other.join()).isEqualTo("b");
+        assertThat(reads.get()).isEqualTo(2);
+        assertThat(count("executed")).isEqualTo(2);
+        assertThat(count("coalesced")).isEqualTo(1);
+
+        // The result is not kept once the read is over
+        assertThat(singleFlight.execute("1", () -> read(Mono.just("c"))).block()).isEqualTo("c");
+        assertThat(reads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void sharesEmptyResultsAndErrors() {
+        Sinks.One<String> result = Sinks.one();
+
+        CompletableFuture<String> first = singleFlight.execute("1", () -> read(result.asMono())).toFuture();
+        CompletableFuture<String> second = singleFlight.execute("1", () -> read(result.asMono())).toFuture();
+        result.tryEmitError(new IllegalStateException("failed"));
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.execute("1", () -> read(Mono.empty())).block()).isNull();
+        assertThat(reads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void forgetStartsANewRead() {
+        Sinks.One<String> stale = Sinks.one();
+
+        CompletableFuture<String> first = singleFlight.execute("1", () -> read(stale.asMono())).toFuture();
+        singleFlight.forget("1");
+        CompletableFuture<String> second = singleFlight.execute("1", () -> read(Mono.just("fresh"))).toFuture();
+        stale.tryEmitValue("stale");
+
+        assertThat(first.join()).isEqualTo("stale");
+        assertThat(second.join()).isEqualTo("fresh");
+        assertThat(count("coalesced")).isZero();
+    }
+
+    private Mono<String> read(Mono<String> result) {
+        reads.incrementAndGet();
+        return result;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(SingleFlight.METER_NAME).tag("read", "test").tag("result", result).counter().count();
+    }
+}
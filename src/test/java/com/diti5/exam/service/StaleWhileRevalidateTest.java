@@ -0,0 +1,125 @@
+package com.diti5.exam.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for {@link StaleWhileRevalidate}.
+ */
+class StaleWhileRevalidateTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private MeterRegistry meterRegistry;
+
+    private Clock clock;
+
+    private StaleWhileRevalidate<String, String> reads;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        reads = new StaleWhileRevalidate<>("test", Duration.ofMillis(50), Duration.ofMinutes(5), 10, meterRegistry, clock);
+    }
+
+    @Test
+    void servesFreshResults() {
+        StaleWhileRevalidate.Result<String> first = reads.execute("1", () -> Mono.just("a")).block();
+        StaleWhileRevalidate.Result<String> second = reads.execute("1", () -> Mono.just("b")).block();
+
+        assertThat(first.value()).isEqualTo("a");
+        assertThat(second.value()).isEqualTo("b");
+        assertThat(second.isStale()).isFalse();
+    }
+
+    @Test
+    void servesTheLastResultInsteadOfASlowReadThenRefreshesIt() {
+        reads.execute("1", () -> Mono.just("a")).block();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(30));
+        Sinks.One<String> slow = Sinks.one();
+
+        StaleWhileRevalidate.Result<String> stale = reads.execute("1", slow::asMono).block();
+
+        assertThat(stale.value()).isEqualTo("a");
+        assertThat(stale.age()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(meterRegistry.get(StaleWhileRevalidate.METER_NAME).tag("reason", "timeout").counter().count()).isEqualTo(1);
+
+        // The slow read completes in the background and becomes the last result
+        slow.tryEmitValue("b");
+        StaleWhileRevalidate.Result<String> refreshed = reads.execute("1", () -> Mono.error(new IllegalStateException("down"))).block();
+
+        assertThat(refreshed.value()).isEqualTo("b");
+        assertThat(refreshed.age()).isZero();
+        assertThat(meterRegistry.get(StaleWhileRevalidate.METER_NAME).tag("reason", "error").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void runsASingleRefreshPerKey() {
+        reads.execute("1", () -> Mono.just("a")).block();
+        Sinks.One<String> slow = Sinks.one();
+        AtomicInteger refreshes = new AtomicInteger();
+
+        StaleWhileRevalidate.Result<String> first = reads
+            .execute("1", () -> Mono.defer(() -> {
+                refreshes.incrementAndGet();
+                return slow.asMono();
+            }))
+            .block();
+        StaleWhileRevalidate.Result<String> second = reads
+            .execute("1", () -> Mono.defer(() -> {
+                refreshes.incrementAndGet();
+                return Mono.just("c");
+            }))
+            .block();
+
+        assertThat(first.value()).isEqualTo("a");
+        assertThat(second.value()).isEqualTo("a");
+        assertThat(second.isStale()).isTrue();
+        assertThat(refreshes).hasValue(1);
+
+        slow.tryEmitValue("b");
+        assertThat(reads.execute("1", () -> Mono.just("c")).block().value()).isEqualTo("c");
+    }
+
+    @Test
+    void doesNotRecoverWithoutARecentResult() {
+        assertThatThrownBy(() -> reads.execute("1", () -> Mono.error(new IllegalStateException("down"))).block())
+            .isInstanceOf(IllegalStateException.class);
+
+        reads.execute("1", () -> Mono.just("a")).block();
+        when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(6)));
+
+        assertThatThrownBy(() -> reads.execute("1", () -> Mono.<String>never().timeout(Duration.ofMillis(100))).block())
+            .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void forgetsTheLastResultsAndTheReadsInFlight() {
+        reads.execute("1", () -> Mono.just("a")).block();
+        Sinks.One<String> slow = Sinks.one();
+        assertThat(reads.execute("1", slow::asMono).block().isStale()).isTrue();
+
+        reads.forgetAll();
+        // The read started before is not kept as the last result
+        slow.tryEmitValue("b");
+
+        assertThatThrownBy(() -> reads.execute("1", () -> Mono.error(new IllegalStateException("down"))).block())
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
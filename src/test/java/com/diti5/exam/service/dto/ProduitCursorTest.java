@@ -0,0 +1,63 @@
+package com.diti5.exam.service.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.diti5.exam.domain.Produit;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Unit tests for {@link ProduitCursor}.
+ */
+class ProduitCursorTest {
+
+    @Test
+    void startWithoutSortOrdersById() {
+        ProduitCursor cursor = ProduitCursor.start(Sort.unsorted());
+
+        assertThat(cursor.getOrder()).isEqualTo(Sort.Order.asc("id"));
+        assertThat(cursor.getLastId()).isNull();
+    }
+
+    @Test
+    void startIgnoresTrailingIdOrder() {
+        ProduitCursor cursor = ProduitCursor.start(Sort.by(Sort.Order.desc("prix"), Sort.Order.asc("id")));
+
+        assertThat(cursor.getOrder()).isEqualTo(Sort.Order.desc("prix"));
+    }
+
+    @Test
+    void startRejectsUnsupportedSort() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ProduitCursor.start(Sort.by("description")));
+        assertThatIllegalArgumentException().isThrownBy(() -> ProduitCursor.start(Sort.by("nom", "prix")));
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        Produit produit = new Produit().id("id.1").nom("Café ~ crème").prix(12.5);
+
+        ProduitCursor nom = ProduitCursor.start(Sort.by(Sort.Direction.DESC, "nom")).after(produit);
+        ProduitCursor prix = ProduitCursor.start(Sort.by("prix")).after(produit);
+
+        assertThat(ProduitCursor.decode(nom.encode())).isEqualTo(nom);
+        assertThat(ProduitCursor.decode(prix.encode())).isEqualTo(prix);
+        assertThat(ProduitCursor.decode(prix.encode()).getLastValue()).isEqualTo(12.5);
+    }
+
+    @Test
+    void encodeDecodeNullValue() {
+        ProduitCursor cursor = ProduitCursor.start(Sort.by("nom")).after(new Produit().id("id1"));
+
+        ProduitCursor decoded = ProduitCursor.decode(cursor.encode());
+
+        assertThat(decoded.getLastValue()).isNull();
+        assertThat(decoded.getLastId()).isEqualTo("id1");
+    }
+
+    @Test
+    void decodeRejectsMalformedToken() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ProduitCursor.decode("not-a-cursor"));
+        assertThatIllegalArgumentException().isThrownBy(() -> ProduitCursor.decode("!!.!!.!!.!!"));
+    }
+}
@@ -0,0 +1,312 @@
+package com.diti5.exam.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.config.CacheConfiguration;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import com.diti5.exam.repository.ProduitRepository;
+import com.diti5.exam.service.ProduitPriceStatistics;
+import com.diti5.exam.service.ProduitReplica;
+import com.diti5.exam.service.ProduitSearchIndex;
+import com.diti5.exam.service.SingleFlight;
+import com.diti5.exam.service.StaleWhileRevalidate;
+import com.diti5.exam.service.dto.ProduitBatchDTO;
+import com.diti5.exam.service.dto.ProduitPageDTO;
+import com.diti5.exam.service.dto.ProduitPriceAdjustmentDTO;
+import com.diti5.exam.service.dto.ProduitTotalCountDTO;
+import com.diti5.exam.service.dto.ProduitTotalCountDTO.Accuracy;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for the caches and counts of {@link ProduitServiceImpl}.
+ */
+class ProduitServiceImplTest {
+
+    private ProduitRepository produitRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private ProduitServiceImpl produitService;
+
+    @BeforeEach
+    public void setup() {
+        produitRepository = mock(ProduitRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getProduit().getListing().setLatencyBudget(Duration.ofMillis(100));
+        produitService =
+            new ProduitServiceImpl(
+                produitRepository,
+                applicationProperties,
+                new ProduitSearchIndex(produitRepository, meterRegistry),
+                new ProduitPriceStatistics(produitRepository, applicationProperties, meterRegistry),
+                new ProduitReplica(produitRepository, applicationProperties, meterRegistry),
+                new CacheConfiguration().produitCache(applicationProperties, meterRegistry),
+                meterRegistry
+            );
+    }
+
+    @Test
+    void findOneReadsThroughTheCache() {
+        when(produitRepository.findById("1")).thenReturn(Mono.just(new Produit().id("1").nom("AAAAAAAAAA")));
+
+        assertThat(produitService.findOne("1").block().getNom()).isEqualTo("AAAAAAAAAA");
+        assertThat(produitService.findOne("1").block().getNom()).isEqualTo("AAAAAAAAAA");
+
+        verify(produitRepository, times(1)).findById("1");
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void findOneDoesNotCacheMissingProduit() {
+        when(produitRepository.findById("1")).thenReturn(Mono.empty());
+
+        assertThat(produitService.findOne("1").block()).isNull();
+        assertThat(produitService.findOne("1").block()).isNull();
+
+        verify(produitRepository, times(2)).findById("1");
+    }
+
+    @Test
+    void findAllByIdReadsTheIdsNotCachedTogether() {
+        when(produitRepository.findById("2")).thenReturn(Mono.just(new Produit().id("2").nom("BBBBBBBBBB")));
+        when(produitRepository.findAllById(idsIn("1", "3", "4"))).thenReturn(
+            Flux.just(new Produit().id("1").nom("AAAAAAAAAA"), new Produit().id("3").nom("CCCCCCCCCC"))
+        );
+        produitService.findOne("2").block();
+
+        ProduitBatchDTO batch = produitService.findAllById(List.of("3", "2", "1", "4", "3")).block();
+
+        assertThat(batch.getProduits()).extracting(Produit::getId).containsExactly("3", "2", "1");
+        assertThat(batch.getMissing()).containsExactly("4");
+        verify(produitRepository, times(1)).findAllById(idsIn("1", "3", "4"));
+
+        when(produitRepository.findAllById(idsIn("4"))).thenReturn(Flux.empty());
+        assertThat(produitService.findAllById(List.of("1", "4")).block().getMissing()).containsExactly("4");
+        verify(produitRepository, times(1)).findAllById(idsIn("4"));
+    }
+
+    @Test
+    void findByCriteriaCoalescesIdenticalPages() {
+        Sinks.Many<Produit> page = Sinks.many().unicast().onBackpressureBuffer();
+        when(produitRepository.findAllBy(PageRequest.of(0, 20))).thenReturn(page.asFlux());
+
+        CompletableFuture<List<Produit>> first = produitService
+            .findByCriteria(new ProduitCriteria(), PageRequest.of(0, 20))
+            .collectList()
+            .toFuture();
+        CompletableFuture<List<Produit>> second = produitService
+            .findByCriteria(new ProduitCriteria(), PageRequest.of(0, 20))
+            .collectList()
+            .toFuture();
+        page.tryEmitNext(new Produit().id("1"));
+        page.tryEmitComplete();
+
+        assertThat(first.join()).extracting(Produit::getId).containsExactly("1");
+        assertThat(second.join()).extracting(Produit::getId).containsExactly("1");
+        verify(produitRepository, times(1)).findAllBy(PageRequest.of(0, 20));
+        assertThat(meterRegistry.get(SingleFlight.METER_NAME).tag("read", "findByCriteria").tag("result", "coalesced").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void streamByCriteriaEmitsTheProduitsAsTheyAreRead() {
+        Sinks.Many<Produit> page = Sinks.many().unicast().onBackpressureBuffer();
+        when(produitRepository.findAllBy(PageRequest.of(0, 20))).thenReturn(page.asFlux());
+        List<Produit> received = new CopyOnWriteArrayList<>();
+
+        produitService.streamByCriteria(new ProduitCriteria(), PageRequest.of(0, 20)).subscribe(received::add);
+        page.tryEmitNext(new Produit().id("1").nom("AAAAAAAAAA"));
+
+        assertThat(received).extracting(Produit::getId).containsExactly("1");
+
+        page.tryEmitNext(new Produit().id("2").nom("BBBBBBBBBB"));
+        page.tryEmitComplete();
+
+        assertThat(received).extracting(Produit::getId).containsExactly("1", "2");
+    }
+
+    @Test
+    void saveInsertsNewProduitsTogetherInGroupCommitMode() {
+        applicationProperties.getProduit().getInserts().setGroupCommit(true);
+        applicationProperties.getProduit().getInserts().setMaxBatchSize(2);
+        // Only the batch size sends the batch, however long the saves take
+        applicationProperties.getProduit().getInserts().setLinger(Duration.ofMinutes(1));
+        produitService =
+            new ProduitServiceImpl(
+                produitRepository,
+                applicationProperties,
+                new ProduitSearchIndex(produitRepository, meterRegistry),
+                new ProduitPriceStatistics(produitRepository, applicationProperties, meterRegistry),
+                new ProduitReplica(produitRepository, applicationProperties, meterRegistry),
+                new CacheConfiguration().produitCache(applicationProperties, meterRegistry),
+                meterRegistry
+            );
+        when(produitRepository.insert(ArgumentMatchers.<Iterable<Produit>>any())).thenAnswer(invocation ->
+            Flux.fromIterable(invocation.<Iterable<Produit>>getArgument(0)).map(produit -> produit.version(0L))
+        );
+
+        CompletableFuture<Produit> first = produitService.save(new Produit().nom("AAAAAAAAAA")).toFuture();
+        CompletableFuture<Produit> second = produitService.save(new Produit().nom("BBBBBBBBBB")).toFuture();
+
+        assertThat(first.join().getId()).isNotNull();
+        assertThat(second.join().getId()).isNotNull().isNotEqualTo(first.join().getId());
+        assertThat(second.join().getNom()).isEqualTo("BBBBBBBBBB");
+        verify(produitRepository, times(1)).insert(ArgumentMatchers.<Iterable<Produit>>any());
+    }
+
+    @Test
+    void saveAllIndexesTheProduitsAsStored() {
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getUpserts()).thenReturn(List.of());
+        when(produitRepository.upsertAll(any(), eq(false))).thenReturn(Mono.just(result));
+        when(produitRepository.findAllById(idsIn("1"))).thenReturn(Flux.just(new Produit().id("1").nom("AAAAAAAAAA").version(3L)));
+
+        produitService.saveAll(Flux.just(new Produit().id("1").nom("AAAAAAAAAA").version(2L)), false).blockLast();
+
+        assertThat(produitService.search("AAAAAAAAAA", 10)).extracting(Produit::getVersion).containsExactly(3L);
+    }
+
+    @Test
+    void writesInvalidateTheCache() {
+        Produit updated = new Produit().id("1").nom("BBBBBBBBBB");
+        when(produitRepository.findById("1")).thenReturn(Mono.just(new Produit().id("1").nom("AAAAAAAAAA")), Mono.just(updated));
+        when(produitRepository.overwrite(any(Produit.class))).thenReturn(Mono.just(updated));
+        when(produitRepository.deleteById("1")).thenReturn(Mono.empty());
+
+        produitService.findOne("1").block();
+        produitService.update(updated).block();
+
+        assertThat(produitService.findOne("1").block().getNom()).isEqualTo("BBBBBBBBBB");
+
+        produitService.delete("1").block();
+        when(produitRepository.findById("1")).thenReturn(Mono.empty());
+
+        assertThat(produitService.findOne("1").block()).isNull();
+    }
+
+    @Test
+    void adjustPrixUpdatesThePricesAtOnceAndInvalidatesTheCache() {
+        ProduitCriteria criteria = new ProduitCriteria();
+        criteria.nom().setEquals("AAAAAAAAAA");
+        when(produitRepository.findById("1")).thenReturn(
+            Mono.just(new Produit().id("1").nom("AAAAAAAAAA").prix(10D)),
+            Mono.just(new Produit().id("1").nom("AAAAAAAAAA").prix(11D))
+        );
+        when(produitRepository.findIdsByCriteria(criteria, null, 1000)).thenReturn(Flux.just("1"));
+        when(produitRepository.adjustPrix(criteria, List.of("1"), 1.1, 0, 2)).thenReturn(Mono.just(1L));
+        when(produitRepository.findAllById(List.of("1"))).thenReturn(Flux.just(new Produit().id("1").nom("AAAAAAAAAA").prix(11D)));
+        produitService.findOne("1").block();
+
+        assertThat(produitService.adjustPrix(new ProduitPriceAdjustmentDTO(criteria, 10D, null, 2)).block()).isEqualTo(1L);
+
+        assertThat(produitService.findOne("1").block().getPrix()).isEqualTo(11D);
+        assertThat(produitService.getPriceStatistics().getMax()).isEqualTo(11D);
+        verify(produitRepository, times(2)).findById("1");
+    }
+
+    @Test
+    void countTotalCapsFilteredCounts() {
+        ProduitCriteria criteria = new ProduitCriteria();
+        criteria.nom().setEquals("AAAAAAAAAA");
+        when(produitRepository.countByCriteria(eq(criteria), eq(10_001L))).thenReturn(Mono.just(10_001L), Mono.just(42L));
+
+        assertThat(produitService.countTotal(criteria).block()).isEqualTo(new ProduitTotalCountDTO(10_000L, Accuracy.LOWER_BOUND));
+        assertThat(produitService.countTotal(criteria).block()).isEqualTo(new ProduitTotalCountDTO(42L, Accuracy.EXACT));
+    }
+
+    @Test
+    void countTotalEstimated() {
+        applicationProperties.getProduit().getCount().setMode(ApplicationProperties.Produit.Count.Mode.ESTIMATED);
+        when(produitRepository.estimatedCount()).thenReturn(Mono.just(3L));
+
+        assertThat(produitService.countTotal(new ProduitCriteria()).block()).isEqualTo(new ProduitTotalCountDTO(3L, Accuracy.ESTIMATED));
+    }
+
+    @Test
+    void countTotalCachedIsResetOnWrite() {
+        applicationProperties.getProduit().getCount().setMode(ApplicationProperties.Produit.Count.Mode.CACHED);
+        when(produitRepository.count()).thenReturn(Mono.just(1L), Mono.just(2L));
+        when(produitRepository.deleteById("1")).thenReturn(Mono.empty());
+
+        assertThat(produitService.countTotal(new ProduitCriteria()).block()).isEqualTo(new ProduitTotalCountDTO(1L, Accuracy.CACHED));
+        assertThat(produitService.countTotal(new ProduitCriteria()).block()).isEqualTo(new ProduitTotalCountDTO(1L, Accuracy.CACHED));
+        verify(produitRepository, times(1)).count();
+
+        produitService.delete("1").block();
+
+        assertThat(produitService.countTotal(new ProduitCriteria()).block()).isEqualTo(new ProduitTotalCountDTO(2L, Accuracy.CACHED));
+    }
+
+    @Test
+    void countTotalNone() {
+        applicationProperties.getProduit().getCount().setMode(ApplicationProperties.Produit.Count.Mode.NONE);
+
+        assertThat(produitService.countTotal(new ProduitCriteria()).block()).isNull();
+    }
+
+    @Test
+    void findPageServesTheLastPageWhileMongoIsSlowUntilAProduitIsWritten() {
+        Sinks.Many<Produit> slowPage = Sinks.many().unicast().onBackpressureBuffer();
+        when(produitRepository.count()).thenReturn(Mono.just(1L));
+        when(produitRepository.findAllBy(PageRequest.of(0, 5))).thenReturn(
+            Flux.just(new Produit().id("1").nom("AAAAAAAAAA")),
+            slowPage.asFlux(),
+            Flux.just(new Produit().id("1").nom("CCCCCCCCCC"))
+        );
+        when(produitRepository.deleteById("2")).thenReturn(Mono.empty());
+
+        assertThat(produitService.findPage(new ProduitCriteria(), PageRequest.of(0, 5), null).block().isStale()).isFalse();
+
+        // Mongo does not answer within the latency budget
+        StaleWhileRevalidate.Result<ProduitPageDTO> stale = produitService
+            .findPage(new ProduitCriteria(), PageRequest.of(0, 5), null)
+            .block();
+
+        assertThat(stale.isStale()).isTrue();
+        assertThat(stale.value().getProduits()).extracting(Produit::getNom).containsExactly("AAAAAAAAAA");
+        assertThat(stale.value().getTotal()).isEqualTo(new ProduitTotalCountDTO(1L, Accuracy.EXACT));
+
+        // The last page may miss a write, so it is not served anymore, even once the slow read completes
+        produitService.delete("2").block();
+        slowPage.tryEmitNext(new Produit().id("1").nom("BBBBBBBBBB"));
+        slowPage.tryEmitComplete();
+        StaleWhileRevalidate.Result<ProduitPageDTO> read = produitService
+            .findPage(new ProduitCriteria(), PageRequest.of(0, 5), null)
+            .block();
+
+        assertThat(read.isStale()).isFalse();
+        assertThat(read.value().getProduits()).extracting(Produit::getNom).containsExactly("CCCCCCCCCC");
+    }
+
+    private static Iterable<String> idsIn(String... ids) {
+        return argThat(actual -> actual != null && Set.copyOf((Collection<String>) actual).equals(Set.of(ids)));
+    }
+}
@@ -1,21 +1,39 @@
 package com.diti5.exam.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 
 import com.diti5.exam.IntegrationTest;
 import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
 import com.diti5.exam.repository.ProduitRepository;
+import com.diti5.exam.service.ProduitETag;
+import com.diti5.exam.service.ProduitPriceStatistics;
+import com.diti5.exam.service.dto.ProduitBulkDeleteDTO;
+import com.diti5.exam.service.dto.ProduitChangeDTO;
+import com.diti5.exam.service.dto.ProduitImportProgressDTO;
+import com.diti5.exam.service.dto.ProduitPriceAdjustmentDTO;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Integration tests for the {@link ProduitResource} REST controller.
@@ -40,6 +58,9 @@ class ProduitResourceIT {
     @Autowired
     private ProduitRepository produitRepository;
 
+    @Autowired
+    private ProduitPriceStatistics produitPriceStatistics;
+
     @Autowired
     private WebTestClient webTestClient;
 
@@ -117,6 +138,184 @@ class ProduitResourceIT {
         assertThat(produitList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    void createProduitWithIdempotencyKey() throws Exception {
+        int databaseSizeBeforeCreate = produitRepository.findAll().collectList().block().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        String location = webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(produit))
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectHeader()
+            .doesNotExist(ProduitResource.IDEMPOTENT_REPLAYED)
+            .returnResult(Produit.class)
+            .getResponseHeaders()
+            .getLocation()
+            .toString();
+
+        // The retry gets the same response, without creating another produit
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(produit))
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectHeader()
+            .valueEquals(HttpHeaders.LOCATION, location)
+            .expectHeader()
+            .valueEquals(ProduitResource.IDEMPOTENT_REPLAYED, "true");
+
+        // The same key cannot be used for another request
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(createUpdatedEntity()))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+        assertThat(produitRepository.findAll().collectList().block()).hasSize(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    void bulkSaveProduits() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+        Produit updatedProduit = createUpdatedEntity().id(produit.getId());
+        Produit newProduit = createEntity();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(List.of(updatedProduit, newProduit)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].index")
+            .value(contains(0, 1))
+            .jsonPath("$.[*].status")
+            .value(contains("UPDATED", "CREATED"));
+
+        // Validate the Produits in the database
+        List<Produit> produitList = produitRepository.findAll().collectList().block();
+        assertThat(produitList).hasSize(2);
+        assertThat(produitRepository.findById(produit.getId()).block().getNom()).isEqualTo(UPDATED_NOM);
+    }
+
+    @Test
+    void importProduits() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        List<ProduitImportProgressDTO> progress = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/import")
+            .contentType(MediaType.parseMediaType("text/csv"))
+            .bodyValue(
+                "id,nom,prix\n" +
+                produit.getId() +
+                "," +
+                UPDATED_NOM +
+                "," +
+                UPDATED_PRIX +
+                "\n," +
+                DEFAULT_NOM +
+                ",\"" +
+                DEFAULT_PRIX +
+                "\"\n,x,free\n"
+            )
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(ProduitImportProgressDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        ProduitImportProgressDTO last = progress.get(progress.size() - 1);
+        assertThat(last.getRows()).isEqualTo(3);
+        assertThat(last.getCreated()).isEqualTo(1);
+        assertThat(last.getUpdated()).isEqualTo(1);
+        assertThat(last.getFailed()).isEqualTo(1);
+        assertThat(progress)
+            .flatMap(ProduitImportProgressDTO::getErrors)
+            .extracting(ProduitImportProgressDTO.RowError::getRow)
+            .containsExactly(4L);
+
+        // Validate the Produits in the database
+        assertThat(produitRepository.findAll().collectList().block()).hasSize(2);
+        assertThat(produitRepository.findById(produit.getId()).block().getNom()).isEqualTo(UPDATED_NOM);
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/import")
+            .contentType(MediaType.parseMediaType("text/csv"))
+            .bodyValue("nom,price\n")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void exportProduits() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/export?format=csv")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith("text/csv")
+            .expectHeader()
+            .doesNotExist(HttpHeaders.CONTENT_ENCODING)
+            .expectBody(String.class)
+            .isEqualTo(
+                "id,nom,description,prix,version\n" +
+                produit.getId() +
+                "," +
+                DEFAULT_NOM +
+                "," +
+                DEFAULT_DESCRIPTION +
+                "," +
+                DEFAULT_PRIX +
+                ",0\n"
+            );
+
+        byte[] compressed = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/export")
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8)).contains("\"id\":\"" + produit.getId() + "\"");
+        }
+
+        webTestClient.get().uri(ENTITY_API_URL + "/export?format=xml").exchange().expectStatus().isBadRequest();
+    }
+
     @Test
     void getAllProduits() {
         // Initialize the database
@@ -143,6 +342,319 @@ class ProduitResourceIT {
             .value(hasItem(DEFAULT_PRIX.doubleValue()));
     }
 
+    @Test
+    void getAllProduitsAsBinaryJson() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_CBOR, MediaType.parseMediaType("application/x-jackson-smile"))) {
+            List<Produit> produitList = webTestClient
+                .get()
+                .uri(ENTITY_API_URL + "?sort=id,desc")
+                .accept(mediaType)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(mediaType)
+                .expectBodyList(Produit.class)
+                .returnResult()
+                .getResponseBody();
+
+            assertThat(produitList).extracting(Produit::getId).contains(produit.getId());
+        }
+    }
+
+    @Test
+    void getProduitsByIds() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+        Produit other = produitRepository.save(createUpdatedEntity()).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?ids={ids}", other.getId() + ",unknown," + produit.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.produits[*].id")
+            .isEqualTo(List.of(other.getId(), produit.getId()))
+            .jsonPath("$.missing")
+            .isEqualTo(List.of("unknown"));
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/by-ids")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(produit.getId(), "unknown"))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.produits[*].nom")
+            .isEqualTo(List.of(DEFAULT_NOM))
+            .jsonPath("$.missing")
+            .isEqualTo(List.of("unknown"));
+
+        webTestClient.post().uri(ENTITY_API_URL + "/by-ids").bodyValue(List.of()).exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getAllProduitsByCriteria() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+        produitRepository.save(createUpdatedEntity()).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?nom.startsWith=AAA&prix.lessThanOrEqual=1.5&description.contains=AA&sort=prix,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectHeader()
+            .valueEquals(ProduitResource.X_TOTAL_COUNT_ACCURACY, "exact")
+            .expectBody()
+            .jsonPath("$.[*].nom")
+            .value(contains(DEFAULT_NOM));
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?prix.greaterThanOrEqual=1.5")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].nom")
+            .value(contains(UPDATED_NOM));
+    }
+
+    @Test
+    void getAllProduitsWithNotAllowedSort() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=description,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void streamAllProduits() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        // Stream all the produitList
+        List<Produit> produitList = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .returnResult(Produit.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+        assertThat(produitList).extracting(Produit::getId).containsExactly(produit.getId());
+    }
+
+    @Test
+    void countProduits() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/count")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(1L);
+    }
+
+    @Test
+    void searchProduits() throws Exception {
+        // Create the Produit through the API so that it is indexed
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(createEntity().nom("Pamplemousse rose")))
+            .exchange()
+            .expectStatus()
+            .isCreated();
+
+        // Search with an unfinished word and a typo
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_search?q=pamplemouse ro")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].nom")
+            .value(contains("Pamplemousse rose"));
+
+        webTestClient.get().uri(ENTITY_API_URL + "/_search?q=pamplemousse&size=0").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getProduitPriceStatistics() throws Exception {
+        // Initialize the database, then the statistics from it
+        produitRepository.save(produit).block();
+        produitPriceStatistics.rebuild().block();
+
+        // A produit created through the API is counted right away
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(createUpdatedEntity()))
+            .exchange()
+            .expectStatus()
+            .isCreated();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/stats")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.count")
+            .value(is(2))
+            .jsonPath("$.min")
+            .value(is(DEFAULT_PRIX))
+            .jsonPath("$.max")
+            .value(is(UPDATED_PRIX))
+            .jsonPath("$.average")
+            .value(is((DEFAULT_PRIX + UPDATED_PRIX) / 2))
+            .jsonPath("$.percentiles.p50")
+            .exists()
+            .jsonPath("$.histogram[0].count")
+            .value(is(2));
+
+        assertThat(produitPriceStatistics.reconcile().block()).isTrue();
+    }
+
+    @Test
+    void streamProduitChanges() {
+        Flux<ServerSentEvent<ProduitChangeDTO>> changes = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<ProduitChangeDTO>>() {})
+            .getResponseBody()
+            .filter(event -> event.data() != null);
+
+        // Write once the change stream had time to open
+        ServerSentEvent<ProduitChangeDTO> inserted = Flux
+            .merge(changes, Mono.delay(Duration.ofSeconds(1)).then(produitRepository.save(produit)).then(Mono.empty()))
+            .blockFirst(Duration.ofSeconds(10));
+
+        assertThat(inserted.event()).isEqualTo("insert");
+        assertThat(inserted.data().getId()).isEqualTo(produit.getId());
+        assertThat(inserted.data().getProduit().getNom()).isEqualTo(DEFAULT_NOM);
+
+        // Changes made while disconnected are received when resuming
+        produitRepository.deleteById(produit.getId()).block();
+
+        ServerSentEvent<ProduitChangeDTO> deleted = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .header("Last-Event-ID", inserted.id())
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<ProduitChangeDTO>>() {})
+            .getResponseBody()
+            .filter(event -> event.data() != null)
+            .blockFirst(Duration.ofSeconds(10));
+
+        assertThat(deleted.event()).isEqualTo("delete");
+        assertThat(deleted.data().getId()).isEqualTo(produit.getId());
+        assertThat(deleted.data().getProduit()).isNull();
+    }
+
+    @Test
+    void streamProduitChangesWithInvalidResumeToken() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes?resumeAfter=not-a-token")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getAllProduitsWithCursor() {
+        // Initialize the database
+        produitRepository.save(createEntity().prix(3D)).block();
+        produitRepository.save(createEntity().prix(1D)).block();
+        produitRepository.save(createEntity().prix(2D)).block();
+
+        // Get the first page
+        String link = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=&size=2&sort=prix,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueMatches(HttpHeaders.LINK, ".*rel=\"next\"")
+            .expectBody()
+            .jsonPath("$.[*].prix")
+            .value(contains(1D, 2D))
+            .returnResult()
+            .getResponseHeaders()
+            .getFirst(HttpHeaders.LINK);
+
+        // Follow the next link to the last page
+        String query = link.substring(link.indexOf('?'), link.indexOf('>'));
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + query)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].prix")
+            .value(contains(3D));
+    }
+
+    @Test
+    void getAllProduitsWithInvalidCursor() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=not-a-cursor")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getProduit() {
         // Initialize the database
@@ -169,6 +681,62 @@ class ProduitResourceIT {
             .value(is(DEFAULT_PRIX.doubleValue()));
     }
 
+    @Test
+    void getProduitWithFields() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "?fields=nom,prix", produit.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.nom")
+            .value(is(DEFAULT_NOM))
+            .jsonPath("$.prix")
+            .value(is(DEFAULT_PRIX.doubleValue()))
+            .jsonPath("$.id")
+            .doesNotExist()
+            .jsonPath("$.description")
+            .doesNotExist();
+    }
+
+    @Test
+    void getAllProduitsWithFields() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&fields=id,nom")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists(HttpHeaders.ETAG)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(produit.getId()))
+            .jsonPath("$.[*].nom")
+            .value(hasItem(DEFAULT_NOM))
+            .jsonPath("$.[*].description")
+            .doesNotExist()
+            .jsonPath("$.[*].prix")
+            .doesNotExist();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=nom,password")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getNonExistingProduit() {
         // Get the produit
@@ -210,12 +778,112 @@ class ProduitResourceIT {
         assertThat(testProduit.getPrix()).isEqualTo(UPDATED_PRIX);
     }
 
+    @Test
+    void getProduitNotModified() {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, produit.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, ProduitETag.of(produitRepository.findById(produit.getId()).block()))
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectBody()
+            .isEmpty();
+    }
+
+    @Test
+    void putExistingProduitWithIfMatch() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+        String eTag = ProduitETag.of(produitRepository.findById(produit.getId()).block());
+
+        Produit updatedProduit = createUpdatedEntity().id(produit.getId());
+
+        String newETag = webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, produit.getId())
+            .header(HttpHeaders.IF_MATCH, eTag)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedProduit))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, ProduitETag.of(createUpdatedEntity().id(produit.getId()).version(1L)))
+            .returnResult(Produit.class)
+            .getResponseHeaders()
+            .getETag();
+
+        // The first ETag is now stale
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, produit.getId())
+            .header(HttpHeaders.IF_MATCH, eTag)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new Produit().id(produit.getId()).prix(3D)))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, produit.getId())
+            .header(HttpHeaders.IF_MATCH, newETag)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new Produit().id(produit.getId()).prix(3D)))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        Produit testProduit = produitRepository.findById(produit.getId()).block();
+        assertThat(testProduit.getNom()).isEqualTo(UPDATED_NOM);
+        assertThat(testProduit.getPrix()).isEqualTo(3D);
+    }
+
+    @Test
+    void putProduitWithStaleVersion() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+        Produit staleProduit = produitRepository.findById(produit.getId()).block();
+
+        // Another writer updates the produit
+        produitRepository.save(produitRepository.findById(produit.getId()).block().prix(UPDATED_PRIX)).block();
+
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, produit.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(staleProduit.nom(UPDATED_NOM)))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, produit.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(
+                TestUtil.convertObjectToJsonBytes(new Produit().id(produit.getId()).nom(UPDATED_NOM).version(staleProduit.getVersion()))
+            )
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT);
+
+        // The first write was kept
+        Produit testProduit = produitRepository.findById(produit.getId()).block();
+        assertThat(testProduit.getNom()).isEqualTo(DEFAULT_NOM);
+        assertThat(testProduit.getPrix()).isEqualTo(UPDATED_PRIX);
+        assertThat(testProduit.getVersion()).isEqualTo(1L);
+    }
+
     @Test
     void putNonExistingProduit() throws Exception {
         int databaseSizeBeforeUpdate = produitRepository.findAll().collectList().block().size();
         produit.setId(UUID.randomUUID().toString());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
         webTestClient
             .put()
             .uri(ENTITY_API_URL_ID, produit.getId())
@@ -223,7 +891,7 @@ class ProduitResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(produit))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Produit in the database
         List<Produit> produitList = produitRepository.findAll().collectList().block();
@@ -332,12 +1000,44 @@ class ProduitResourceIT {
         assertThat(testProduit.getPrix()).isEqualTo(UPDATED_PRIX);
     }
 
+    @Test
+    void partialUpdateProduitKeepsTheOtherFieldsAndIncrementsTheVersion() throws Exception {
+        // Initialize the database
+        Produit saved = produitRepository.save(produit).block();
+        long version = saved.getVersion();
+
+        // Update only the nom of the produit
+        Produit partialUpdatedProduit = new Produit();
+        partialUpdatedProduit.setId(saved.getId());
+        partialUpdatedProduit.nom(UPDATED_NOM);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedProduit.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedProduit))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.nom")
+            .isEqualTo(UPDATED_NOM)
+            .jsonPath("$.version")
+            .isEqualTo(version + 1);
+
+        // Validate the Produit in the database
+        Produit testProduit = produitRepository.findById(saved.getId()).block();
+        assertThat(testProduit.getNom()).isEqualTo(UPDATED_NOM);
+        assertThat(testProduit.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
+        assertThat(testProduit.getPrix()).isEqualTo(DEFAULT_PRIX);
+        assertThat(testProduit.getVersion()).isEqualTo(version + 1);
+    }
+
     @Test
     void patchNonExistingProduit() throws Exception {
         int databaseSizeBeforeUpdate = produitRepository.findAll().collectList().block().size();
         produit.setId(UUID.randomUUID().toString());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, produit.getId())
@@ -345,7 +1045,7 @@ class ProduitResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(produit))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Produit in the database
         List<Produit> produitList = produitRepository.findAll().collectList().block();
@@ -412,4 +1112,173 @@ class ProduitResourceIT {
         List<Produit> produitList = produitRepository.findAll().collectList().block();
         assertThat(produitList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void bulkDeleteProduitsByIds() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+        Produit other = produitRepository.save(createEntity()).block();
+        produitRepository.save(createEntity()).block();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk/delete")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new ProduitBulkDeleteDTO(List.of(produit.getId(), other.getId()), null)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(2L);
+
+        // Validate the database contains one item
+        assertThat(produitRepository.count().block()).isEqualTo(1L);
+    }
+
+    @Test
+    void bulkDeleteProduitsByFilter() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+        produitRepository.save(createUpdatedEntity()).block();
+
+        ProduitCriteria filter = new ProduitCriteria();
+        filter.prix().setLessThanOrEqual(DEFAULT_PRIX);
+        filter.nom().setStartsWith(DEFAULT_NOM.substring(0, 3));
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk/delete")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new ProduitBulkDeleteDTO(null, filter)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(1L);
+
+        // Validate only the non matching produit remains
+        List<Produit> produitList = produitRepository.findAll().collectList().block();
+        assertThat(produitList).extracting(Produit::getNom).containsExactly(UPDATED_NOM);
+    }
+
+    @Test
+    void bulkDeleteProduitsWithoutFilter() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk/delete")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new ProduitBulkDeleteDTO(null, new ProduitCriteria())))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        // Validate nothing was deleted
+        assertThat(produitRepository.count().block()).isEqualTo(1L);
+    }
+
+    @Test
+    void adjustProduitsPrix() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit.prix(10D)).block();
+        produitRepository.save(createUpdatedEntity().prix(3.33)).block();
+        produitRepository.save(createUpdatedEntity().prix(null)).block();
+
+        ProduitCriteria filter = new ProduitCriteria();
+        filter.nom().setEquals(UPDATED_NOM);
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk/prix")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new ProduitPriceAdjustmentDTO(filter, -10D, null, 2)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(1L);
+
+        // Validate only the matching produit with a price changed, rounded
+        List<Produit> produitList = produitRepository.findAll().collectList().block();
+        assertThat(produitList).extracting(Produit::getPrix).containsExactlyInAnyOrder(10D, 3.0, null);
+        assertThat(produitList)
+            .filteredOn(p -> Double.valueOf(3.0).equals(p.getPrix()))
+            .extracting(Produit::getVersion)
+            .containsExactly(1L);
+
+        filter.nom().setEquals(DEFAULT_NOM);
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk/prix")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new ProduitPriceAdjustmentDTO(filter, null, 2.5, null)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(1L);
+
+        assertThat(produitRepository.findById(produit.getId()).block().getPrix()).isEqualTo(12.5);
+    }
+
+    @Test
+    void adjustProduitsPrixUpdatesTheStatistics() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit.prix(10D)).block();
+        produitRepository.save(createUpdatedEntity().prix(20D)).block();
+        produitPriceStatistics.rebuild().block();
+
+        ProduitCriteria filter = new ProduitCriteria();
+        filter.prix().setGreaterThanOrEqual(0D);
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk/prix")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new ProduitPriceAdjustmentDTO(filter, 50D, null, null)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(2L);
+
+        // The statistics serve the new prices as soon as the adjustment is acknowledged
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/stats")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.count")
+            .value(is(2))
+            .jsonPath("$.min")
+            .value(is(15D))
+            .jsonPath("$.max")
+            .value(is(30D));
+    }
+
+    @Test
+    void adjustProduitsPrixWithBothPercentAndAmount() throws Exception {
+        // Initialize the database
+        produitRepository.save(produit).block();
+
+        ProduitCriteria filter = new ProduitCriteria();
+        filter.nom().setEquals(DEFAULT_NOM);
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk/prix")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new ProduitPriceAdjustmentDTO(filter, 10D, 1D, null)))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        // Validate the price did not change
+        assertThat(produitRepository.findById(produit.getId()).block().getPrix()).isEqualTo(DEFAULT_PRIX);
+    }
 }
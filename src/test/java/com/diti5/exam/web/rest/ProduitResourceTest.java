@@ -0,0 +1,80 @@
+package com.diti5.exam.web.rest;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.diti5.exam.config.ApplicationProperties;
+import com.diti5.exam.domain.Produit;
+import com.diti5.exam.domain.criteria.ProduitCriteria;
+import com.diti5.exam.service.ProduitService;
+import com.diti5.exam.service.StaleWhileRevalidate;
+import com.diti5.exam.service.dto.ProduitPageDTO;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for the {@link ProduitResource} REST controller, against a mocked {@link ProduitService}.
+ */
+class ProduitResourceTest {
+
+    private static final String ENTITY_API_URL = "/api/produits?page=0&size=5";
+
+    private ProduitService produitService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void setup() {
+        produitService = mock(ProduitService.class);
+        ProduitResource produitResource = new ProduitResource(produitService, new ApplicationProperties(), null, null, null);
+        webTestClient =
+            WebTestClient
+                .bindToController(produitResource)
+                .argumentResolvers(configurer -> configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver()))
+                .build();
+    }
+
+    @Test
+    void getAllProduitsFlagsAStalePage() {
+        ProduitPageDTO page = new ProduitPageDTO(List.of(new Produit().id("1").nom("AAAAAAAAAA")), null);
+        when(produitService.findPage(any(ProduitCriteria.class), any(Pageable.class), isNull())).thenReturn(
+            Mono.just(new StaleWhileRevalidate.Result<>(page, null)),
+            Mono.just(new StaleWhileRevalidate.Result<>(page, Duration.ofSeconds(30)))
+        );
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.WARNING)
+            .expectHeader()
+            .doesNotExist(HttpHeaders.AGE);
+
+        // Mongo did not answer within the latency budget
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+            .expectHeader()
+            .valueEquals(HttpHeaders.AGE, "30")
+            .expectBody()
+            .jsonPath("$[0].nom")
+            .isEqualTo("AAAAAAAAAA");
+    }
+}